@@ -7,9 +7,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
 import ru.practicum.shareit.client.BaseClient;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -27,8 +32,12 @@ public class BookingClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> createBooking(long userId, BookingDto bookingDto) {
-        return post("", userId, bookingDto);
+    public ResponseEntity<Object> createBooking(long userId, String idempotencyKey, BookingDto bookingDto) {
+        return postIdempotent("", userId, idempotencyKey, bookingDto);
+    }
+
+    public ResponseEntity<Object> createBookings(long userId, BookingBatchDto bookingBatchDto) {
+        return post("/batch", userId, bookingBatchDto);
     }
 
     public ResponseEntity<Object> getBooking(long bookingId, long userId) {
@@ -40,21 +49,48 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
     }
 
-    public ResponseEntity<Object> getAllBooking(long userId, State state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("/?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> changeStatuses(long userId, BookingStatusBatchDto bookingStatusBatchDto) {
+        return patch("/status", userId, bookingStatusBatchDto);
     }
 
-    public ResponseEntity<Object> getAllBookingByOwner(long userId, State state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAllBooking(long userId, State state, int from, int size, String cursor) {
+        return get("/" + pageQuery(cursor), userId, pageParameters(state, from, size, cursor));
+    }
+
+    public ResponseEntity<Object> getAllBookingByOwner(long userId, State state, int from, int size, String cursor) {
+        return get("/owner" + pageQuery(cursor), userId, pageParameters(state, from, size, cursor));
+    }
+
+    public ResponseEntity<Object> getBookingStats(long userId) {
+        return get("/stats", userId);
+    }
+
+    public ResponseEntity<Object> getBookingStatsByOwner(long userId) {
+        return get("/owner/stats", userId);
+    }
+
+    public void exportBookings(long userId, HttpServletResponse response) throws IOException {
+        stream("/export", userId, response);
+    }
+
+    public void exportBookingsByOwner(long userId, HttpServletResponse response) throws IOException {
+        stream("/owner/export", userId, response);
+    }
+
+    private static String pageQuery(String cursor) {
+        String query = "?state={state}&from={from}&size={size}";
+        return cursor == null ? query : query + "&cursor={cursor}";
+    }
+
+    private static Map<String, Object> pageParameters(State state, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
 }
@@ -5,11 +5,16 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.client.BaseClient;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -20,8 +25,38 @@ public class BookingController {
 
     @PostMapping
     public ResponseEntity<Object> createBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                @RequestHeader(value = BaseClient.IDEMPOTENCY_KEY_HEADER, required = false)
+                                                String idempotencyKey,
                                                 @Valid @RequestBody BookingDto bookingDto) {
-        return bookingClient.createBooking(userId, bookingDto);
+        return bookingClient.createBooking(userId, idempotencyKey, bookingDto);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @Valid @RequestBody BookingBatchDto bookingBatchDto) {
+        return bookingClient.createBookings(userId, bookingBatchDto);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Object> getBookingStats(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingClient.getBookingStats(userId);
+    }
+
+    @GetMapping("/owner/stats")
+    public ResponseEntity<Object> getBookingStatsByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingClient.getBookingStatsByOwner(userId);
+    }
+
+    @GetMapping("/export")
+    public void exportBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                               HttpServletResponse response) throws IOException {
+        bookingClient.exportBookings(userId, response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsByOwner(@RequestHeader("X-Sharer-User-Id") long userId,
+                                      HttpServletResponse response) throws IOException {
+        bookingClient.exportBookingsByOwner(userId, response);
     }
 
     @GetMapping("/{bookingId}")
@@ -30,6 +65,12 @@ public class BookingController {
         return bookingClient.getBooking(bookingId, userId);
     }
 
+    @PatchMapping("/status")
+    public ResponseEntity<Object> changeStatuses(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @Valid @RequestBody BookingStatusBatchDto bookingStatusBatchDto) {
+        return bookingClient.changeStatuses(userId, bookingStatusBatchDto);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<Object> changeStatus(@PathVariable long bookingId,
                                                @RequestParam boolean approved,
@@ -41,15 +82,17 @@ public class BookingController {
     public ResponseEntity<Object> getAllBooking(@RequestParam(defaultValue = "ALL") State state,
                                                 @RequestHeader("X-Sharer-User-Id") long userId,
                                                 @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                @RequestParam(defaultValue = "10") @Positive int size) {
-        return bookingClient.getAllBooking(userId, state, from, size);
+                                                @RequestParam(defaultValue = "10") @Positive int size,
+                                                @RequestParam(required = false) String cursor) {
+        return bookingClient.getAllBooking(userId, state, from, size, cursor);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getAllBookingByOwner(@RequestParam(defaultValue = "ALL") State state,
                                                        @RequestHeader("X-Sharer-User-Id") long userId,
                                                        @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                       @RequestParam(defaultValue = "10") @Positive int size) {
-        return bookingClient.getAllBookingByOwner(userId, state, from, size);
+                                                       @RequestParam(defaultValue = "10") @Positive int size,
+                                                       @RequestParam(required = false) String cursor) {
+        return bookingClient.getAllBookingByOwner(userId, state, from, size, cursor);
     }
 }
@@ -1,14 +1,20 @@
 package ru.practicum.shareit.client;
 
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
 public class BaseClient {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     protected final RestTemplate rest;
 
     public BaseClient(RestTemplate rest) {
@@ -39,6 +45,14 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
+    protected <T> ResponseEntity<Object> postIdempotent(String path, long userId, @Nullable String idempotencyKey, T body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return makeAndSendRequest(HttpMethod.POST, path, headers, null, body);
+    }
+
     protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
@@ -75,6 +89,23 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    protected void stream(String path, @Nullable Long userId, HttpServletResponse response) throws IOException {
+        ClientHttpRequest request = rest.getRequestFactory()
+                .createRequest(rest.getUriTemplateHandler().expand(path), HttpMethod.GET);
+        request.getHeaders().putAll(defaultHeaders(userId));
+        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+        try (ClientHttpResponse serverResponse = request.execute()) {
+            response.setStatus(serverResponse.getRawStatusCode());
+            MediaType contentType = serverResponse.getHeaders().getContentType();
+            if (contentType != null) {
+                response.setContentType(contentType.toString());
+            } else if (HttpStatus.Series.resolve(serverResponse.getRawStatusCode()) != HttpStatus.Series.SUCCESSFUL) {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            }
+            StreamUtils.copy(serverResponse.getBody(), response.getOutputStream());
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(
             HttpMethod method,
             String path,
@@ -82,7 +113,17 @@ public class BaseClient {
             @Nullable Map<String, Object> parameters,
             @Nullable T body
     ) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return makeAndSendRequest(method, path, defaultHeaders(userId), parameters, body);
+    }
+
+    private <T> ResponseEntity<Object> makeAndSendRequest(
+            HttpMethod method,
+            String path,
+            HttpHeaders headers,
+            @Nullable Map<String, Object> parameters,
+            @Nullable T body
+    ) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
         ResponseEntity<Object> shareitServerResponse;
         try {
             if (parameters != null) {
@@ -11,6 +11,7 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.comment.CommentDtoFromRequest;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Service
@@ -28,8 +29,8 @@ public class ItemClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> createItem(ItemDto itemDto, long userId) {
-        return post("", userId, itemDto);
+    public ResponseEntity<Object> createItem(ItemDto itemDto, long userId, String idempotencyKey) {
+        return postIdempotent("", userId, idempotencyKey, itemDto);
     }
 
     public ResponseEntity<Object> updateItem(long userId, ItemDto itemDto, long itemId) {
@@ -57,6 +58,13 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
+    public ResponseEntity<Object> getAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
 
     public ResponseEntity<Object> createComment(long userId, long itemId, CommentDtoFromRequest comment) {
         return post("/" + itemId + "/comment", userId, comment);
@@ -1,16 +1,19 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.comment.CommentDtoFromRequest;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 @Controller
 @RequestMapping(path = "/items")
@@ -21,8 +24,10 @@ public class ItemController {
 
     @PostMapping
     public ResponseEntity<Object> createItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                             @RequestHeader(value = BaseClient.IDEMPOTENCY_KEY_HEADER, required = false)
+                                             String idempotencyKey,
                                              @RequestBody @Valid ItemDto itemDto) {
-        return itemClient.createItem(itemDto, userId);
+        return itemClient.createItem(itemDto, userId, idempotencyKey);
     }
 
     @PatchMapping("/{itemId}")
@@ -53,6 +58,16 @@ public class ItemController {
         return itemClient.searchItems(text, from, size, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @PathVariable long itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
     @PostMapping("/{itemId}/comment")
     public ResponseEntity<Object> createComment(@RequestHeader("X-Sharer-User-Id") long userId,
                                                 @Valid @RequestBody CommentDtoFromRequest comment,
@@ -32,8 +32,9 @@ public class ItemRequestController {
     @GetMapping(path = "/all")
     public ResponseEntity<Object> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId,
                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                 @RequestParam(defaultValue = "10") @Positive int size) {
-        return itemRequestClient.getAllRequest(userId, from, size);
+                                                 @RequestParam(defaultValue = "10") @Positive int size,
+                                                 @RequestParam(required = false) String cursor) {
+        return itemRequestClient.getAllRequest(userId, from, size, cursor);
     }
 
     @GetMapping(path = "/{requestId}")
@@ -41,4 +42,10 @@ public class ItemRequestController {
                                                  @PathVariable long requestId) {
         return itemRequestClient.getRequestById(userId, requestId);
     }
+
+    @GetMapping(path = "/{requestId}/suggestions")
+    public ResponseEntity<Object> getSuggestions(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @PathVariable long requestId) {
+        return itemRequestClient.getSuggestions(userId, requestId);
+    }
 }
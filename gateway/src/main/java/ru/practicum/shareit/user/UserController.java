@@ -1,13 +1,18 @@
 package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
 
 @Controller
 @RequestMapping(path = "/users")
@@ -32,8 +37,14 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getALlUsers() {
-        return userClient.getAllUsers();
+    public ResponseEntity<Object> getALlUsers(@RequestParam(defaultValue = "0") @PositiveOrZero long afterId,
+                                              @RequestParam(defaultValue = "100") @Positive int size) {
+        return userClient.getUsers(afterId, size);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        userClient.exportUsers(response);
     }
 
     @DeleteMapping("/{userId}")
@@ -10,11 +10,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -65,4 +69,46 @@ public class BookingControllerTest {
             throw new RuntimeException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test2_createBookingsWhenBatchIsNotValid() {
+        try {
+            mvc.perform(post("/bookings/batch")
+                            .content(mapper.writeValueAsString(new BookingBatchDto(List.of())))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().is(400));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        BookingDto bookingDto = new BookingDto(1L, LocalDateTime.now().minusDays(5), LocalDateTime.now().plusDays(2));
+        try {
+            mvc.perform(post("/bookings/batch")
+                            .content(mapper.writeValueAsString(new BookingBatchDto(List.of(bookingDto))))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().is(400));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test3_changeStatusesWhenDecisionIsMissing() {
+        try {
+            mvc.perform(patch("/bookings/status")
+                            .content(mapper.writeValueAsString(new BookingStatusBatchDto(List.of(1L), null)))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().is(400));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+}
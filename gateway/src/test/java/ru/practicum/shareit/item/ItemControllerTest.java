@@ -15,6 +15,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.nio.charset.StandardCharsets;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -99,4 +100,21 @@ public class ItemControllerTest {
             throw new RuntimeException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test2_tryGetAvailabilityWithoutPeriod() {
+        try {
+            mvc.perform(get("/items/{itemId}/availability", 1)
+                            .param("from", "2030-01-01T00:00:00")
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().is(400));
+            mvc.perform(get("/items/{itemId}/availability", 1)
+                            .param("from", "2030-01-01")
+                            .param("to", "2031-01-01T00:00:00")
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().is(400));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+}
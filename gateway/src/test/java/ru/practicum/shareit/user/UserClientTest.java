@@ -0,0 +1,59 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class UserClientTest {
+    private MockRestServiceServer server;
+    private UserClient client;
+
+    @BeforeEach
+    public void setUp() {
+        MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+        client = new UserClient("http://server", new RestTemplateBuilder(customizer));
+        server = customizer.getServer();
+    }
+
+    @Test
+    public void test1_exportUsersCopiesStream() throws Exception {
+        String body = "{\"id\":1}\n{\"id\":2}\n";
+        server.expect(requestTo("http://server/users"))
+                .andExpect(header("Accept", MediaType.APPLICATION_NDJSON_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_NDJSON));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        client.exportUsers(response);
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getContentType(), is(MediaType.APPLICATION_NDJSON_VALUE));
+        assertThat(response.getContentAsString(), is(body));
+        server.verify();
+    }
+
+    @Test
+    public void test2_exportUsersPassesErrorThrough() throws Exception {
+        server.expect(requestTo("http://server/users"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE).body("{\"message\":\"down\"}"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        client.exportUsers(response);
+
+        assertThat(response.getStatus(), is(503));
+        assertThat(response.getContentType(), is(MediaType.APPLICATION_JSON_VALUE));
+        assertThat(response.getContentAsString(), is("{\"message\":\"down\"}"));
+        server.verify();
+    }
+}
@@ -7,13 +7,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.Mockito;
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
+import ru.practicum.shareit.ErrorHandler;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -28,8 +33,12 @@ public class UserControllerTest {
 
     @BeforeEach
     public void setUp() {
+        ProxyFactory validated = new ProxyFactory(controller);
+        validated.setProxyTargetClass(true);
+        validated.addAdvice(new MethodValidationInterceptor());
         mvc = MockMvcBuilders
-                .standaloneSetup(controller)
+                .standaloneSetup(validated.getProxy())
+                .setControllerAdvice(new ErrorHandler())
                 .build();
     }
 
@@ -57,4 +66,21 @@ public class UserControllerTest {
             throw new RuntimeException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test2_tryGetUsersWithInvalidPage() {
+        try {
+            mvc.perform(get("/users")
+                            .param("size", "0")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().is(400));
+            mvc.perform(get("/users")
+                            .param("afterId", "-1")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().is(400));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verifyNoInteractions(client);
+    }
+}
@@ -6,10 +6,14 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.booking.NotAvailableBookingException;
 import ru.practicum.shareit.booking.NotFoundBookingException;
+import ru.practicum.shareit.idempotency.IdempotencyStoreFullException;
+import ru.practicum.shareit.idempotency.InvalidIdempotencyKeyException;
 import ru.practicum.shareit.item.NotFoundItemException;
 import ru.practicum.shareit.requests.NotFoundRequestException;
 import ru.practicum.shareit.user.NotFoundUserException;
 
+import javax.validation.ConstraintViolationException;
+
 @RestControllerAdvice
 public class ErrorHandler {
 
@@ -37,4 +41,30 @@ public class ErrorHandler {
     public ResponseEntity<Error> catchNotFoundRequestException(NotFoundRequestException e) {
         return new ResponseEntity<>(new Error(HttpStatus.NOT_FOUND.value(), e.getMessage()), HttpStatus.NOT_FOUND);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler
+    public ResponseEntity<Error> catchInvalidCursorException(InvalidCursorException e) {
+        return new ResponseEntity<>(new Error(HttpStatus.BAD_REQUEST.value(), e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Error> catchInvalidPeriodException(InvalidPeriodException e) {
+        return new ResponseEntity<>(new Error(HttpStatus.BAD_REQUEST.value(), e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Error> catchInvalidIdempotencyKeyException(InvalidIdempotencyKeyException e) {
+        return new ResponseEntity<>(new Error(HttpStatus.BAD_REQUEST.value(), e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Error> catchIdempotencyStoreFullException(IdempotencyStoreFullException e) {
+        return new ResponseEntity<>(new Error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()),
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Error> catchConstraintViolationException(ConstraintViolationException e) {
+        return new ResponseEntity<>(new Error(HttpStatus.BAD_REQUEST.value(), e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit;
+
+public class InvalidPeriodException extends RuntimeException {
+
+    public InvalidPeriodException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+public class Ndjson {
+    private static final ObjectMapper MAPPER = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .build();
+
+    public static <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> producer) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    JsonGenerator generator = MAPPER.getFactory().createGenerator(out);
+                    generator.setRootValueSeparator(null);
+                    producer.accept(value -> write(generator, value));
+                    generator.flush();
+                });
+    }
+
+    private static void write(JsonGenerator generator, Object value) {
+        try {
+            MAPPER.writeValue(generator, value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionCallbacks {
+
+    public static void afterCommit(Runnable onCommit) {
+        afterCommit(onCommit, () -> {
+        });
+    }
+
+    public static void afterCommit(Runnable onCommit, Runnable onRollback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onCommit.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        onRollback.run();
+                    }
+                }
+            });
+        } else {
+            onCommit.run();
+        }
+    }
+
+    public static void onRollback(Runnable onRollback) {
+        afterCommit(() -> {
+        }, onRollback);
+    }
+}
@@ -12,20 +12,28 @@ import java.time.LocalDateTime;
 @Entity
 @NoArgsConstructor
 @Table (name = "booking")
+@NamedEntityGraph(name = Booking.VIEW_GRAPH, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 public class Booking {
+    public static final String VIEW_GRAPH = "Booking.view";
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private long id;
     @Column(name = "start_date")
     private LocalDateTime start;
     @Column(name = "end_date")
     private LocalDateTime end;
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private Item item;
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private User booker;
     @Enumerated(value = EnumType.STRING)
     private Status status;
+    @Version
+    private long version;
 
     public Booking(LocalDateTime start, LocalDateTime end) {
         this.start = start;
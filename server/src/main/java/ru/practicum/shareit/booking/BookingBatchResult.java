@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingBatchResult {
+    private long itemId;
+    private BookingBatchStatus status;
+    private BookingDtoWithItem booking;
+    private String message;
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking;
+
+public enum BookingBatchStatus {
+    CREATED,
+    NOT_FOUND,
+    NOT_AVAILABLE,
+    OWN_ITEM
+}
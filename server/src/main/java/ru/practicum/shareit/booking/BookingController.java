@@ -1,51 +1,122 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.KeysetCursor;
+import ru.practicum.shareit.Ndjson;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 
+import javax.validation.Valid;
 import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     private final BookingService bookingService;
+    private final IdempotencyStore idempotencyStore;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, IdempotencyStore idempotencyStore) {
         this.bookingService = bookingService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @PostMapping
-    public Booking createBooking(@RequestHeader("X-Sharer-User-Id") long userId,
-                                 @RequestBody BookingDto bookingDto) {
-        return bookingService.createBooking(userId, bookingDto);
+    public BookingDtoWithItem createBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+                                            @RequestHeader(value = IdempotencyStore.HEADER, required = false)
+                                            String idempotencyKey,
+                                            @RequestBody BookingDto bookingDto) {
+        return idempotencyStore.execute(userId, "POST /bookings", idempotencyKey, BookingDtoWithItem.class,
+                () -> BookingMapper.toBookingDtoWithItem(bookingService.createBooking(userId, bookingDto)));
+    }
+
+    @PostMapping("/batch")
+    public List<BookingBatchResult> createBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                   @RequestBody BookingBatchDto bookingBatchDto) {
+        return bookingService.createBookings(userId, bookingBatchDto.getBookings());
+    }
+
+    @GetMapping("/stats")
+    public BookingStats getBookingStats(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.getBookingStats(userId);
+    }
+
+    @GetMapping("/owner/stats")
+    public BookingStats getBookingStatsByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.getBookingStatsByOwner(userId);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(@RequestHeader("X-Sharer-User-Id") long userId) {
+        bookingService.checkUser(userId);
+        return Ndjson.<BookingDtoWithItem>stream(consumer -> bookingService.exportBookings(userId, consumer));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        bookingService.checkUser(userId);
+        return Ndjson.<BookingDtoWithItem>stream(consumer -> bookingService.exportBookingsByOwner(userId, consumer));
     }
 
     @GetMapping("/{bookingId}")
-    public Booking getBooking(@PathVariable long bookingId,
-                              @RequestHeader("X-Sharer-User-Id") long userId) {
-        return bookingService.getBooking(bookingId, userId);
+    public BookingDtoWithItem getBooking(@PathVariable long bookingId,
+                                         @RequestHeader("X-Sharer-User-Id") long userId) {
+        return BookingMapper.toBookingDtoWithItem(bookingService.getBooking(bookingId, userId));
+    }
+
+    @PatchMapping("/status")
+    public List<BookingStatusResult> changeStatuses(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                    @Valid @RequestBody BookingStatusBatchDto bookingStatusBatchDto) {
+        return bookingService.changeStatuses(bookingStatusBatchDto.getBookingIds(),
+                bookingStatusBatchDto.getApproved(), userId);
     }
 
     @PatchMapping("/{bookingId}")
-    public Booking changeStatus(@PathVariable long bookingId,
-                                @RequestParam boolean approved,
-                                @RequestHeader("X-Sharer-User-Id") long userId) {
-        return bookingService.changeStatus(bookingId, approved, userId);
+    public BookingDtoWithItem changeStatus(@PathVariable long bookingId,
+                                           @RequestParam boolean approved,
+                                           @RequestHeader("X-Sharer-User-Id") long userId) {
+        return BookingMapper.toBookingDtoWithItem(bookingService.changeStatus(bookingId, approved, userId));
     }
 
     @GetMapping
-    public List<Booking> getAllBooking(@RequestParam(defaultValue = "ALL") State state,
-                                       @RequestHeader("X-Sharer-User-Id") long userId,
-                                       @RequestParam(defaultValue = "0") int from,
-                                       @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllBooking(new BookingDtoState(userId, state), from, size);
+    public ResponseEntity<List<BookingDtoWithItem>> getAllBooking(
+            @RequestParam(defaultValue = "ALL") State state,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getAllBooking(new BookingDtoState(userId, state), from, size));
+        }
+        return withNextCursor(bookingService.getAllBooking(new BookingDtoState(userId, state),
+                KeysetCursor.decode(cursor), size), size);
     }
 
     @GetMapping("/owner")
-    public List<Booking> getAllBookingByOwner(@RequestParam(defaultValue = "ALL") State state,
-                                              @RequestHeader("X-Sharer-User-Id") long userId,
-                                              @RequestParam(defaultValue = "0") int from,
-                                              @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllBookingByOwner(new BookingDtoState(userId, state), from, size);
+    public ResponseEntity<List<BookingDtoWithItem>> getAllBookingByOwner(
+            @RequestParam(defaultValue = "ALL") State state,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getAllBookingByOwner(new BookingDtoState(userId, state), from, size));
+        }
+        return withNextCursor(bookingService.getAllBookingByOwner(new BookingDtoState(userId, state),
+                KeysetCursor.decode(cursor), size), size);
+    }
+
+    private ResponseEntity<List<BookingDtoWithItem>> withNextCursor(List<BookingDtoWithItem> bookings, int size) {
+        if (bookings.size() < size) {
+            return ResponseEntity.ok(bookings);
+        }
+        BookingDtoWithItem last = bookings.get(bookings.size() - 1);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, new KeysetCursor(last.getStart(), last.getId()).encode())
+                .body(bookings);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDtoWithItem {
+    private long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Status status;
+    private ShortItem item;
+    private ShortUser booker;
+
+    public BookingDtoWithItem(long id, LocalDateTime start, LocalDateTime end, Status status,
+                              long itemId, String itemName, long bookerId, String bookerName) {
+        this(id, start, end, status, new ShortItem(itemId, itemName), new ShortUser(bookerId, bookerName));
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ShortItem {
+        private long id;
+        private String name;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ShortUser {
+        private long id;
+        private String name;
+    }
+}
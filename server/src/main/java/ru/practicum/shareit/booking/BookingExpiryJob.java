@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.TransactionCallbacks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Отменяет бронирования, которые так и не были подтверждены до даты начала.
+ * Идентификаторы выбираются пачками по возрастанию id, каждая пачка отменяется одним условным update,
+ * поэтому одновременный запуск на нескольких экземплярах сервера не отменит бронирование дважды.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter expiredCounter;
+    private final DistributionSummary runSummary;
+    private final Timer runTimer;
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            BookingIntervalIndex bookingIntervalIndex,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.booking.expiry.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.expiredCounter = meterRegistry.counter("shareit.booking.expiry.expired");
+        this.runSummary = meterRegistry.summary("shareit.booking.expiry.run.rows");
+        this.runTimer = meterRegistry.timer("shareit.booking.expiry.run");
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval:300000}")
+    public void scheduledExpire() {
+        expire(LocalDateTime.now());
+    }
+
+    public int expire(LocalDateTime now) {
+        return runTimer.record(() -> {
+            int expired = 0;
+            long afterId = 0;
+            List<BookingStatusView> batch;
+            do {
+                batch = bookingRepository.findStatusViewsStartedBefore(Status.WAITING, now, afterId,
+                        PageRequest.of(0, batchSize));
+                if (!batch.isEmpty()) {
+                    expired += expireBatch(batch, now);
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == batchSize);
+            expiredCounter.increment(expired);
+            runSummary.record(expired);
+            log.info("Отменено {} неподтвержденных бронирований, начавшихся до {}", expired, now);
+            return expired;
+        });
+    }
+
+    private int expireBatch(List<BookingStatusView> batch, LocalDateTime now) {
+        List<Long> bookingIds = batch.stream()
+                .map(BookingStatusView::getId)
+                .collect(Collectors.toList());
+        Set<Long> itemIds = batch.stream()
+                .map(BookingStatusView::getItemId)
+                .collect(Collectors.toSet());
+        return transactionTemplate.execute(status -> {
+            int updated = bookingRepository.updateStatusIfStartedBefore(Status.CANCELED, bookingIds, Status.WAITING, now);
+            itemIds.forEach(bookingIntervalIndex::invalidate);
+            TransactionCallbacks.afterCommit(() -> itemIds.forEach(bookingIntervalIndex::invalidate), () -> {
+            });
+            return updated;
+        });
+    }
+}
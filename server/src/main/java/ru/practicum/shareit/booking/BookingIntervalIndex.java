@@ -0,0 +1,166 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.TransactionCallbacks;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Кэш интервалов активных бронирований по вещам для проверки пересечений.
+ * Изменения попадают в дерево только после коммита транзакции, поэтому незакоммиченное бронирование
+ * не видно другим запросам; от пересечений защищают блокировка вещи и ограничение в базе.
+ * Вещи, измененные в текущей транзакции, до ее завершения проверяются запросом к базе.
+ * Дерево, загруженное во время чужого коммита, не кэшируется, чтобы не потерять его изменения.
+ * Изменения с других узлов в дерево не попадают, поэтому дерево перечитывается не реже чем раз в ttl
+ * и служит только подсказкой: найденное в нем пересечение перед отказом проверяется запросом к базе,
+ * а пропущенное ловит ограничение в базе.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    public static final Set<Status> ACTIVE_STATUSES = EnumSet.of(Status.WAITING, Status.APPROVED);
+    private final BookingRepository bookingRepository;
+    private final PrimaryReadTemplate transactionTemplate;
+    private final Map<Long, BookingIntervalTree> trees;
+    private final Duration ttl;
+    private long generation;
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                PrimaryReadTemplate transactionTemplate,
+                                @Value("${shareit.booking.interval-index.max-items:10000}") int maxItems,
+                                @Value("${shareit.booking.interval-index.ttl:PT1M}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.trees = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BookingIntervalTree> eldest) {
+                return size() > maxItems;
+            }
+        });
+    }
+
+    public boolean hasOverlap(long itemId, LocalDateTime start, LocalDateTime end, long excludeBookingId) {
+        if (start == null || end == null) {
+            return false;
+        }
+        if (isChangedInTransaction(itemId)) {
+            return bookingRepository.existsOverlapping(itemId, start, end, excludeBookingId, ACTIVE_STATUSES);
+        }
+        BookingIntervalTree tree = getOrLoad(itemId);
+        if (start.isBefore(tree.getLoadedFrom())) {
+            return bookingRepository.existsOverlapping(itemId, start, end, excludeBookingId, ACTIVE_STATUSES);
+        }
+        synchronized (tree) {
+            if (!tree.hasOverlap(start, end, excludeBookingId)) {
+                return false;
+            }
+        }
+        return bookingRepository.existsOverlapping(itemId, start, end, excludeBookingId, ACTIVE_STATUSES);
+    }
+
+    public void update(long itemId, Booking booking) {
+        update(itemId, booking.getId(), booking.getStatus(), booking.getStart(), booking.getEnd());
+    }
+
+    public void update(long itemId, long bookingId, Status status, LocalDateTime start, LocalDateTime end) {
+        markChangedInTransaction(itemId);
+        TransactionCallbacks.afterCommit(() -> apply(itemId, bookingId, status, start, end));
+    }
+
+    public void invalidate(long itemId) {
+        synchronized (trees) {
+            generation++;
+            trees.remove(itemId);
+        }
+    }
+
+    private void apply(long itemId, long bookingId, Status status, LocalDateTime start, LocalDateTime end) {
+        BookingIntervalTree tree;
+        synchronized (trees) {
+            generation++;
+            tree = trees.get(itemId);
+        }
+        if (tree == null) {
+            return;
+        }
+        synchronized (tree) {
+            if (ACTIVE_STATUSES.contains(status) && start != null && end != null) {
+                tree.put(bookingId, start, end);
+            } else {
+                tree.remove(bookingId);
+            }
+        }
+    }
+
+    private void markChangedInTransaction(long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> changed = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (changed == null) {
+            changed = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changed);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BookingIntervalIndex.this);
+                }
+            });
+        }
+        changed.add(itemId);
+    }
+
+    private boolean isChangedInTransaction(long itemId) {
+        @SuppressWarnings("unchecked")
+        Set<Long> changed = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        return changed != null && changed.contains(itemId);
+    }
+
+    private BookingIntervalTree getOrLoad(long itemId) {
+        LocalDateTime now = LocalDateTime.now();
+        BookingIntervalTree tree = trees.get(itemId);
+        if (tree != null && isFresh(tree, now)) {
+            return tree;
+        }
+        long loadGeneration;
+        synchronized (trees) {
+            loadGeneration = generation;
+        }
+        BookingIntervalTree loaded = new BookingIntervalTree(now);
+        transactionTemplate.executeWithoutResult(status -> {
+            bookingRepository.findActivePeriods(itemId, now, ACTIVE_STATUSES)
+                    .forEach(s -> loaded.put(s.getId(), s.getStart(), s.getEnd()));
+            TransactionCallbacks.onRollback(() -> invalidate(itemId));
+        });
+        log.debug("Загружено {} интервалов бронирований вещи id = {}", loaded.size(), itemId);
+        synchronized (trees) {
+            if (loadGeneration != generation) {
+                return loaded;
+            }
+            tree = trees.get(itemId);
+            if (tree == null || !isFresh(tree, now)) {
+                trees.put(itemId, loaded);
+                return loaded;
+            }
+        }
+        return tree;
+    }
+
+    private boolean isFresh(BookingIntervalTree tree, LocalDateTime now) {
+        return tree.getLoadedFrom().plus(ttl).isAfter(now);
+    }
+}
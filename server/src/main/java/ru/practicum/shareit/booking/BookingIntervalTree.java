@@ -0,0 +1,220 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сбалансированное (AVL) дерево интервалов бронирований одной вещи.
+ * Узлы упорядочены по (start, id), каждый узел хранит максимальный end своего поддерева,
+ * поэтому поиск пересечения с [start, end) выполняется за O(log n).
+ */
+public class BookingIntervalTree {
+    private final LocalDateTime loadedFrom;
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private Node root;
+
+    public BookingIntervalTree(LocalDateTime loadedFrom) {
+        this.loadedFrom = loadedFrom;
+    }
+
+    public LocalDateTime getLoadedFrom() {
+        return loadedFrom;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void put(long id, LocalDateTime start, LocalDateTime end) {
+        remove(id);
+        Node node = new Node(id, start, end);
+        root = insert(root, node);
+        nodes.put(id, node);
+    }
+
+    public void remove(long id) {
+        Node node = nodes.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    public boolean hasOverlap(LocalDateTime start, LocalDateTime end, long excludeId) {
+        return hasOverlap(root, start, end, excludeId);
+    }
+
+    public List<BookingPeriod> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<BookingPeriod> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    private boolean hasOverlap(Node node, LocalDateTime start, LocalDateTime end, long excludeId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return false;
+        }
+        if (node.id != excludeId && node.overlaps(start, end)) {
+            return true;
+        }
+        if (hasOverlap(node.left, start, end, excludeId)) {
+            return true;
+        }
+        return node.start.isBefore(end) && hasOverlap(node.right, start, end, excludeId);
+    }
+
+    private void collect(Node node, LocalDateTime start, LocalDateTime end, List<BookingPeriod> result) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+        collect(node.left, start, end, result);
+        if (node.overlaps(start, end)) {
+            result.add(node);
+        }
+        if (node.start.isBefore(end)) {
+            collect(node.right, start, end, result);
+        }
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, Node target) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(target, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, target);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, target);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int compare(Node a, Node b) {
+        int cmp = a.start.compareTo(b.start);
+        return cmp != 0 ? cmp : Long.compare(a.id, b.id);
+    }
+
+    private static class Node implements BookingPeriod {
+        private final long id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        Node(long id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return start.isBefore(to) && end.isAfter(from);
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        @Override
+        public LocalDateTime getEnd() {
+            return end;
+        }
+    }
+}
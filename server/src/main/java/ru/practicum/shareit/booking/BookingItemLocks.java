@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Сериализует проверку пересечений и вставку бронирований одной вещи.
+ * Блокируется полоса, выбранная по id вещи, и держится до завершения транзакции, разные вещи
+ * обычно попадают в разные полосы. При нескольких экземплярах сервера дополнительно берется
+ * транзакционная advisory-блокировка PostgreSQL на id вещи.
+ */
+@Component
+public class BookingItemLocks {
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+    private final ReentrantLock[] stripes;
+    private final boolean advisory;
+    private final EntityManager entityManager;
+
+    public BookingItemLocks(EntityManager entityManager,
+                            @Value("${shareit.booking.locks.stripes:256}") int stripes,
+                            @Value("${shareit.booking.locks.advisory:false}") boolean advisory) {
+        this.entityManager = entityManager;
+        this.advisory = advisory;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public void lock(long itemId) {
+        lock(List.of(itemId));
+    }
+
+    public void lock(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещей возможна только внутри транзакции");
+        }
+        int[] locked = itemIds.stream()
+                .mapToInt(this::stripe)
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : locked) {
+            stripes[stripe].lock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = locked.length - 1; i >= 0; i--) {
+                    stripes[locked[i]].unlock();
+                }
+            }
+        });
+        if (advisory) {
+            itemIds.stream()
+                    .distinct()
+                    .sorted()
+                    .forEach(itemId -> entityManager
+                            .createNativeQuery("select 1 from pg_advisory_xact_lock(?1)")
+                            .setParameter(1, itemId)
+                            .getSingleResult());
+        }
+    }
+
+    int stripe(long itemId) {
+        return Math.floorMod(Long.hashCode(itemId * MIX), stripes.length);
+    }
+}
@@ -16,4 +16,31 @@ public class BookingMapper {
                 booking.getBooker().getId()
         );
     }
-}
\ No newline at end of file
+
+    public static BookingDtoForItem toLastBookingDto(ItemBookingSummary summary) {
+        return new BookingDtoForItem(
+                summary.getLastBookingId(),
+                summary.getLastBookerId()
+        );
+    }
+
+    public static BookingDtoForItem toNextBookingDto(ItemBookingSummary summary) {
+        return new BookingDtoForItem(
+                summary.getNextBookingId(),
+                summary.getNextBookerId()
+        );
+    }
+
+    public static BookingDtoWithItem toBookingDtoWithItem(Booking booking) {
+        return new BookingDtoWithItem(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getStatus(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getBooker().getId(),
+                booking.getBooker().getName()
+        );
+    }
+}
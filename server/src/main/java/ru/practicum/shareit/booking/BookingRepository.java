@@ -1,78 +1,386 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    @Override
+    @EntityGraph(Booking.VIEW_GRAPH)
+    Optional<Booking> findById(Long bookingId);
+
     List<Booking> findByBooker_IdAndEndIsBefore(long bookerId, LocalDateTime end);
 
-    Page<Booking> findByBooker_IdAndEndIsBefore(long bookerId, LocalDateTime end, Pageable pageable);
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "and b.end < ?2")
+    List<BookingDtoWithItem> findByBooker_IdAndEndIsBefore(long bookerId, LocalDateTime end, Pageable pageable);
 
-    Page<Booking> findByBooker_IdAndStartIsAfter(long bookerId, LocalDateTime start, Pageable pageable);
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "and b.start > ?2")
+    List<BookingDtoWithItem> findByBooker_IdAndStartIsAfter(long bookerId, LocalDateTime start, Pageable pageable);
 
-    Page<Booking> findByBooker_Id(long bookerId, Pageable pageable);
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1")
+    List<BookingDtoWithItem> findByBooker_Id(long bookerId, Pageable pageable);
 
-    @Query(value = "select b from Booking b " +
-            "where b.booker.id = ?1 " +
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
             "and b.start < ?2 " +
             "and b.end > ?2")
-    Page<Booking> findCurrentBooking(long bookerId, LocalDateTime now, Pageable pageable);
+    List<BookingDtoWithItem> findCurrentBooking(long bookerId, LocalDateTime now, Pageable pageable);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
-            "where b.booker.id = ?1 " +
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
             "and b.status = ?2")
-    Page<Booking> findBookingByBookerAndStatus(long bookerId, Status state, Pageable pageable);
+    List<BookingDtoWithItem> findBookingByBookerAndStatus(long bookerId, Status state, Pageable pageable);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
             "where i.owner.id = ?1 " +
             "and b.status = ?2")
-    Page<Booking> findBookingByOwnerAndStatus(long bookerId, Status state, Pageable pageable);
+    List<BookingDtoWithItem> findBookingByOwnerAndStatus(long bookerId, Status state, Pageable pageable);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
             "where i.owner.id = ?1 " +
             "and b.end < ?2")
-    Page<Booking> findBookingByOwnerPast(long bookerId, LocalDateTime now, Pageable pageable);
+    List<BookingDtoWithItem> findBookingByOwnerPast(long bookerId, LocalDateTime now, Pageable pageable);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
             "where i.owner.id = ?1 " +
             "and b.start > ?2")
-    Page<Booking> findBookingByOwnerFuture(long bookerId, LocalDateTime now, Pageable pageable);
+    List<BookingDtoWithItem> findBookingByOwnerFuture(long bookerId, LocalDateTime now, Pageable pageable);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
             "where i.owner.id = ?1 " +
             "and b.start < ?2 " +
             "and b.end > ?2")
-    Page<Booking> findBookingByOwnerCurrent(long bookerId, LocalDateTime now, Pageable pageable);
+    List<BookingDtoWithItem> findBookingByOwnerCurrent(long bookerId, LocalDateTime now, Pageable pageable);
 
-    @Query(value = "select b from Booking b " +
-            "left join b.item i " +
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
             "where i.owner.id = ?1")
-    Page<Booking> findBookingByOwner(long bookerId, Pageable pageable);
+    List<BookingDtoWithItem> findBookingByOwner(long bookerId, Pageable pageable);
 
-    @Query(nativeQuery = true,
-            value = "select * from booking " +
-                    "left join items i on booking.item_id = i.id " +
-                    "where item_id = ?1 " +
-                    "and end_date < ?2 " +
-                    "order by end_date desc " +
-                    "limit 1")
-    Booking findLastItemBooking(long itemId, LocalDateTime now);
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findBookerBookingsAfterCursor(long userId,
+                                                           LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "and b.end < ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findBookerBookingsPastAfterCursor(long userId, LocalDateTime now,
+                                                               LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "and b.start > ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findBookerBookingsFutureAfterCursor(long userId, LocalDateTime now,
+                                                                 LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "and b.start < ?2 " +
+            "and b.end > ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findBookerBookingsCurrentAfterCursor(long userId, LocalDateTime now,
+                                                                  LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "and b.status = ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findBookerBookingsByStatusAfterCursor(long userId, Status status,
+                                                                   LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where i.owner.id = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findOwnerBookingsAfterCursor(long userId,
+                                                          LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where i.owner.id = ?1 " +
+            "and b.end < ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findOwnerBookingsPastAfterCursor(long userId, LocalDateTime now,
+                                                              LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where i.owner.id = ?1 " +
+            "and b.start > ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findOwnerBookingsFutureAfterCursor(long userId, LocalDateTime now,
+                                                                LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where i.owner.id = ?1 " +
+            "and b.start < ?2 " +
+            "and b.end > ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findOwnerBookingsCurrentAfterCursor(long userId, LocalDateTime now,
+                                                                 LocalDateTime cursorStart, long cursorId, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where i.owner.id = ?1 " +
+            "and b.status = ?2 " +
+            "and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<BookingDtoWithItem> findOwnerBookingsByStatusAfterCursor(long userId, Status status,
+                                                                  LocalDateTime cursorStart, long cursorId, Pageable pageable);
 
     @Query(nativeQuery = true,
-            value = "select * from booking " +
-                    "left join items i on booking.item_id = i.id " +
-                    "where item_id = ?1 " +
-                    "and booking.start_date > ?2 " +
-                    "order by end_date limit 1")
-    Booking findNextItemBooking(long itemId, LocalDateTime now);
-}
\ No newline at end of file
+            value = "select l.item_id as itemId, l.id as id, l.booker_id as bookerId, l.end_date as endDate, " +
+                    "'LAST' as kind from (" +
+                    "select b.item_id, b.id, b.booker_id, b.end_date, " +
+                    "row_number() over (partition by b.item_id order by b.end_date desc) as rn " +
+                    "from booking b " +
+                    "where b.item_id in (:itemIds) " +
+                    "and b.end_date < :now) l " +
+                    "where l.rn = 1 " +
+                    "union all " +
+                    "select n.item_id, n.id, n.booker_id, n.end_date, 'NEXT' from (" +
+                    "select b.item_id, b.id, b.booker_id, b.end_date, " +
+                    "row_number() over (partition by b.item_id order by b.end_date) as rn " +
+                    "from booking b " +
+                    "where b.item_id in (:itemIds) " +
+                    "and b.start_date > :now) n " +
+                    "where n.rn = 1")
+    List<ItemBookingView> findLastAndNextItemBookings(@Param("itemIds") Collection<Long> itemIds,
+                                                      @Param("now") LocalDateTime now);
+
+    @Query(value = "select b.id as id, b.start as start, b.end as end from Booking b " +
+            "where b.item.id = ?1 " +
+            "and b.end > ?2 " +
+            "and b.status in ?3")
+    List<BookingPeriod> findActivePeriods(long itemId, LocalDateTime from, Collection<Status> statuses);
+
+    @Query(value = "select b.id as id, b.start as start, b.end as end from Booking b " +
+            "where b.item.id = ?1 " +
+            "and b.start < ?3 " +
+            "and b.end > ?2 " +
+            "and b.status in ?4 " +
+            "order by b.start")
+    List<BookingPeriod> findActivePeriodsBetween(long itemId, LocalDateTime from, LocalDateTime to,
+                                                 Collection<Status> statuses);
+
+    @Query(value = "select b.item.id as itemId, b.id as id, b.start as start, b.end as end from Booking b " +
+            "where b.item.id in ?1 " +
+            "and b.start < ?3 " +
+            "and b.end > ?2 " +
+            "and b.status in ?4")
+    List<ItemBookingPeriod> findItemsActivePeriodsBetween(Collection<Long> itemIds, LocalDateTime from,
+                                                          LocalDateTime to, Collection<Status> statuses);
+
+    @Query(value = "select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.item.id = ?1 " +
+            "and b.start < ?3 " +
+            "and b.end > ?2 " +
+            "and b.id <> ?4 " +
+            "and b.status in ?5")
+    boolean existsOverlapping(long itemId, LocalDateTime start, LocalDateTime end, long excludeBookingId,
+                              Collection<Status> statuses);
+
+    @Query(value = "select b.id as id, i.id as itemId, i.owner.id as ownerId, b.status as status, " +
+            "b.start as start, b.end as end, b.version as version from Booking b " +
+            "join b.item i " +
+            "where b.id in ?1")
+    List<BookingStatusView> findStatusViews(Collection<Long> bookingIds);
+
+    @Query(value = "select b.id as id, i.id as itemId, i.owner.id as ownerId, b.status as status, " +
+            "b.start as start, b.end as end, b.version as version from Booking b " +
+            "join b.item i " +
+            "where b.status = ?1 " +
+            "and b.start < ?2 " +
+            "and b.id > ?3 " +
+            "order by b.id")
+    List<BookingStatusView> findStatusViewsStartedBefore(Status status, LocalDateTime now, long afterId,
+                                                         Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update Booking b set b.status = ?1, b.version = b.version + 1 " +
+            "where b.id in ?2 " +
+            "and b.status = ?3 " +
+            "and b.start < ?4")
+    int updateStatusIfStartedBefore(Status status, Collection<Long> bookingIds, Status currentStatus,
+                                    LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update Booking b set b.status = ?1, b.version = b.version + 1 " +
+            "where b.id in ?2 " +
+            "and b.status <> ?1 " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = ?3)")
+    int updateStatusByOwner(Status status, Collection<Long> bookingIds, long ownerId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update Booking b set b.status = ?2, b.version = b.version + 1 " +
+            "where b.id = ?1 " +
+            "and b.status in ?3 " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = ?4)")
+    int updateStatus(long bookingId, Status status, Collection<Status> currentStatuses, long ownerId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update Booking b set b.status = ?2, b.version = b.version + 1 " +
+            "where b.id = ?1 " +
+            "and b.version = ?3")
+    int updateStatusIfVersion(long bookingId, Status status, long version);
+
+    @Query(value = "select b.item.id as itemId, " +
+            "min(case when b.start > ?2 then b.start else b.end end) as validUntil " +
+            "from Booking b " +
+            "where b.item.id in ?1 " +
+            "and b.end > ?2 " +
+            "group by b.item.id")
+    List<ItemBookingBoundary> findItemBookingBoundaries(Collection<Long> itemIds, LocalDateTime now);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingStats(" +
+            "count(b), " +
+            "coalesce(sum(case when b.start < ?2 and b.end > ?2 then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.end < ?2 then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.start > ?2 then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.WAITING then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.APPROVED then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.REJECTED then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.CANCELED then 1 else 0 end), 0)) " +
+            "from Booking b " +
+            "where b.booker.id = ?1")
+    BookingStats countBookerBookingsByState(long bookerId, LocalDateTime now);
+
+    @Query(value = "select new ru.practicum.shareit.booking.BookingStats(" +
+            "count(b), " +
+            "coalesce(sum(case when b.start < ?2 and b.end > ?2 then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.end < ?2 then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.start > ?2 then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.WAITING then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.APPROVED then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.REJECTED then 1 else 0 end), 0), " +
+            "coalesce(sum(case when b.status = ru.practicum.shareit.booking.Status.CANCELED then 1 else 0 end), 0)) " +
+            "from Booking b " +
+            "join b.item i " +
+            "where i.owner.id = ?1")
+    BookingStats countOwnerBookingsByState(long ownerId, LocalDateTime now);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"))
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where u.id = ?1 " +
+            "order by b.start desc, b.id desc")
+    Stream<BookingDtoWithItem> streamBookerBookings(long bookerId);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"))
+    @Query(value = "select new ru.practicum.shareit.booking.BookingDtoWithItem(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "from Booking b " +
+            "join b.item i " +
+            "join b.booker u " +
+            "where i.owner.id = ?1 " +
+            "order by b.start desc, b.id desc")
+    Stream<BookingDtoWithItem> streamOwnerBookings(long ownerId);
+}
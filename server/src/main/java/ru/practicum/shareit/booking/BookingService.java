@@ -1,17 +1,37 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.KeysetCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     Booking createBooking(long userId, BookingDto bookingDto);
 
+    List<BookingBatchResult> createBookings(long userId, List<BookingDto> bookingDtos);
+
     Booking getBooking(long bookingId, long userId);
 
     Booking changeStatus(long bookingId, boolean approved, long userId);
 
-    List<Booking> getAllBooking(BookingDtoState bookingDtoState, int from, int size);
+    List<BookingStatusResult> changeStatuses(List<Long> bookingIds, boolean approved, long userId);
+
+    List<BookingDtoWithItem> getAllBooking(BookingDtoState bookingDtoState, int from, int size);
+
+    List<BookingDtoWithItem> getAllBookingByOwner(BookingDtoState bookingDtoState, int from, int size);
+
+    List<BookingDtoWithItem> getAllBooking(BookingDtoState bookingDtoState, KeysetCursor cursor, int size);
+
+    List<BookingDtoWithItem> getAllBookingByOwner(BookingDtoState bookingDtoState, KeysetCursor cursor, int size);
+
+    BookingStats getBookingStats(long userId);
+
+    BookingStats getBookingStatsByOwner(long userId);
+
+    void checkUser(long userId);
+
+    void exportBookings(long userId, Consumer<BookingDtoWithItem> consumer);
 
-    List<Booking> getAllBookingByOwner(BookingDtoState bookingDtoState, int from, int size);
-}
\ No newline at end of file
+    void exportBookingsByOwner(long userId, Consumer<BookingDtoWithItem> consumer);
+}
@@ -1,48 +1,86 @@
 package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.KeysetCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.NotFoundItemException;
 import ru.practicum.shareit.user.NotFoundUserException;
+import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class BookingServiceImpl implements BookingService {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    private static final Sort BOOKING_ORDER = Sort.by(Sort.Direction.DESC, "start", "id");
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingSummaryStore itemBookingSummaryStore;
+    private final BookingItemLocks bookingItemLocks;
 
     public BookingServiceImpl(BookingRepository bookingRepository,
                               ItemRepository itemRepository,
-                              UserRepository userRepository) {
+                              UserRepository userRepository,
+                              BookingIntervalIndex bookingIntervalIndex,
+                              ItemBookingSummaryStore itemBookingSummaryStore,
+                              BookingItemLocks bookingItemLocks) {
         this.bookingRepository = bookingRepository;
         this.itemRepository = itemRepository;
         this.userRepository = userRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.itemBookingSummaryStore = itemBookingSummaryStore;
+        this.bookingItemLocks = bookingItemLocks;
     }
 
     @Override
+    @Transactional
     public Booking createBooking(long userId, BookingDto bookingDto) {
         Item item = itemRepository.findById(bookingDto.getItemId())
                 .orElseThrow(() -> new NotFoundItemException(
                         String.format("Вещь id = %s не найдена", bookingDto.getItemId())));
         if (item.getOwner().getId() != userId) {
             if (item.getAvailable()) {
+                bookingItemLocks.lock(item.getId());
+                checkOverlap(item.getId(), bookingDto.getStart(), bookingDto.getEnd(), 0);
                 Booking booking = BookingMapper.toBooking(bookingDto);
                 booking.setStatus(Status.WAITING);
                 booking.setItem(item);
                 booking.setBooker(userRepository.findById(userId).orElseThrow());
                 log.info("Пользователь id = {} бронирует вещь id = {}", userId, bookingDto.getItemId());
-                return bookingRepository.save(booking);
+                Booking savedBooking = excludeOverlap(List.of(item.getId()), () -> {
+                    Booking saved = bookingRepository.save(booking);
+                    bookingRepository.flush();
+                    return saved;
+                });
+                bookingIntervalIndex.update(item.getId(), savedBooking);
+                itemBookingSummaryStore.update(List.of(savedBooking), LocalDateTime.now());
+                return savedBooking;
             } else {
                 throw new NotAvailableBookingException(String.format(
                         "Вещь с id = %s недоступна для бронирования",
@@ -56,6 +94,71 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional
+    public List<BookingBatchResult> createBookings(long userId, List<BookingDto> bookingDtos) {
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundUserException(String.format("Пользователь id = %s не найден", userId)));
+        Map<Long, Item> items = itemRepository.findAllByIdIn(bookingDtos.stream()
+                        .map(BookingDto::getItemId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        bookingItemLocks.lock(items.keySet());
+        Map<Long, BookingIntervalTree> batchPeriods = findBusyPeriods(items.keySet(), bookingDtos);
+        List<BookingBatchResult> results = new ArrayList<>(bookingDtos.size());
+        List<BookingBatchResult> createdResults = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (BookingDto bookingDto : bookingDtos) {
+            long itemId = bookingDto.getItemId();
+            Item item = items.get(itemId);
+            if (item == null) {
+                results.add(new BookingBatchResult(itemId, BookingBatchStatus.NOT_FOUND, null,
+                        String.format("Вещь id = %s не найдена", itemId)));
+            } else if (item.getOwner().getId() == userId) {
+                results.add(new BookingBatchResult(itemId, BookingBatchStatus.OWN_ITEM, null, String.format(
+                        "Невозможно бронирование собственное вещи пользователем id = %s", userId)));
+            } else if (!item.getAvailable()) {
+                results.add(new BookingBatchResult(itemId, BookingBatchStatus.NOT_AVAILABLE, null, String.format(
+                        "Вещь с id = %s недоступна для бронирования", itemId)));
+            } else if (hasBatchOverlap(batchPeriods, bookingDto)) {
+                results.add(new BookingBatchResult(itemId, BookingBatchStatus.NOT_AVAILABLE, null, String.format(
+                        "Вещь с id = %s уже забронирована на указанный период", itemId)));
+            } else {
+                Booking booking = BookingMapper.toBooking(bookingDto);
+                booking.setStatus(Status.WAITING);
+                booking.setItem(item);
+                booking.setBooker(booker);
+                bookings.add(booking);
+                if (bookingDto.getStart() != null && bookingDto.getEnd() != null) {
+                    batchPeriods.computeIfAbsent(itemId, id -> new BookingIntervalTree(LocalDateTime.MIN))
+                            .put(-bookings.size(), bookingDto.getStart(), bookingDto.getEnd());
+                }
+                BookingBatchResult result = new BookingBatchResult(itemId, BookingBatchStatus.CREATED, null, null);
+                results.add(result);
+                createdResults.add(result);
+            }
+        }
+        log.info("Пользователь id = {} бронирует {} из {} вещей", userId, bookings.size(), bookingDtos.size());
+        List<Booking> savedBookings = excludeOverlap(bookings.stream()
+                .map(b -> b.getItem().getId())
+                .collect(Collectors.toSet()), () -> {
+                    List<Booking> saved = bookingRepository.saveAll(bookings);
+                    bookingRepository.flush();
+                    return saved;
+                });
+        for (int i = 0; i < savedBookings.size(); i++) {
+            Booking savedBooking = savedBookings.get(i);
+            bookingIntervalIndex.update(savedBooking.getItem().getId(), savedBooking);
+            createdResults.get(i).setBooking(BookingMapper.toBookingDtoWithItem(savedBooking));
+        }
+        if (!savedBookings.isEmpty()) {
+            itemBookingSummaryStore.update(savedBookings, LocalDateTime.now());
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Booking getBooking(long bookingId, long userId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundBookingException(
@@ -71,56 +174,130 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional
     public Booking changeStatus(long bookingId, boolean approved, long userId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new NotFoundBookingException(
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        Set<Status> currentStatuses = approved ? EnumSet.of(Status.WAITING) : EnumSet.complementOf(EnumSet.of(status));
+        if (bookingRepository.updateStatus(bookingId, status, currentStatuses, userId) == 0) {
+            Booking booking = bookingRepository.findById(bookingId)
+                    .orElseThrow(() -> new NotFoundBookingException(
+                            String.format("Бронирование id = %s не найдено", bookingId)));
+            if (booking.getItem().getOwner().getId() != userId) {
+                throw new NotFoundUserException(String.format("Данная вещь не принадлежит юзеру id = %s", userId));
+            }
+            if (booking.getStatus() == status) {
+                throw new NotAvailableBookingException(String.format(
+                        "Невозможно изменить статус на '%s'",
+                        status));
+            }
+            if (approved && !BookingIntervalIndex.ACTIVE_STATUSES.contains(booking.getStatus())) {
+                bookingItemLocks.lock(booking.getItem().getId());
+                checkOverlap(booking.getItem().getId(), booking.getStart(), booking.getEnd(), bookingId);
+            }
+            if (excludeOverlap(List.of(booking.getItem().getId()),
+                    () -> bookingRepository.updateStatusIfVersion(bookingId, status, booking.getVersion())) == 0) {
+                throw new NotAvailableBookingException(String.format(
+                        "Бронирование id = %s было изменено другим запросом",
+                        bookingId));
+            }
+        }
+        log.info("Изменен статус бронирования id = {}", bookingId);
+        Booking savedBooking = bookingRepository.findById(bookingId).orElseThrow();
+        bookingIntervalIndex.update(savedBooking.getItem().getId(), savedBooking);
+        return savedBooking;
+    }
+
+    @Override
+    @Transactional
+    public List<BookingStatusResult> changeStatuses(List<Long> bookingIds, boolean approved, long userId) {
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        Map<Long, BookingStatusView> bookings = bookingRepository.findStatusViews(bookingIds).stream()
+                .collect(Collectors.toMap(BookingStatusView::getId, Function.identity()));
+        if (approved) {
+            bookingItemLocks.lock(bookings.values().stream()
+                    .filter(b -> b.getOwnerId() == userId && !BookingIntervalIndex.ACTIVE_STATUSES.contains(b.getStatus()))
+                    .map(BookingStatusView::getItemId)
+                    .collect(Collectors.toSet()));
+        }
+        Map<Long, BookingIntervalTree> batchPeriods = new HashMap<>();
+        Map<Long, BookingStatusResult> results = new LinkedHashMap<>();
+        List<BookingStatusView> changed = new ArrayList<>();
+        for (Long bookingId : bookingIds) {
+            if (results.containsKey(bookingId)) {
+                continue;
+            }
+            BookingStatusView booking = bookings.get(bookingId);
+            if (booking == null) {
+                results.put(bookingId, new BookingStatusResult(bookingId, BookingStatusOutcome.NOT_FOUND,
                         String.format("Бронирование id = %s не найдено", bookingId)));
-        if (booking.getItem().getOwner().getId() == userId) {
-            if (approved) {
-                if (booking.getStatus() != Status.APPROVED) {
-                    booking.setStatus(Status.APPROVED);
+            } else if (booking.getOwnerId() != userId) {
+                results.put(bookingId, new BookingStatusResult(bookingId, BookingStatusOutcome.NOT_OWNER,
+                        String.format("Данная вещь не принадлежит юзеру id = %s", userId)));
+            } else if (booking.getStatus() == status) {
+                results.put(bookingId, new BookingStatusResult(bookingId, BookingStatusOutcome.UNCHANGED,
+                        String.format("Невозможно изменить статус на '%s'", status)));
+            } else if (approved && !BookingIntervalIndex.ACTIVE_STATUSES.contains(booking.getStatus())
+                    && hasApprovalOverlap(batchPeriods, booking)) {
+                results.put(bookingId, new BookingStatusResult(bookingId, BookingStatusOutcome.NOT_AVAILABLE,
+                        String.format("Вещь с id = %s уже забронирована на указанный период", booking.getItemId())));
+            } else {
+                if (approved && booking.getStart() != null && booking.getEnd() != null) {
+                    batchPeriods.computeIfAbsent(booking.getItemId(), id -> new BookingIntervalTree(LocalDateTime.MIN))
+                            .put(booking.getId(), booking.getStart(), booking.getEnd());
+                }
+                results.put(bookingId, new BookingStatusResult(bookingId, BookingStatusOutcome.UPDATED, null));
+                changed.add(booking);
+            }
+        }
+        if (!changed.isEmpty()) {
+            int updated = excludeOverlap(changed.stream()
+                    .map(BookingStatusView::getItemId)
+                    .collect(Collectors.toSet()), () -> bookingRepository.updateStatusByOwner(status, changed.stream()
+                    .map(BookingStatusView::getId)
+                    .collect(Collectors.toList()), userId));
+            log.info("Пользователь id = {} изменил статус {} бронирований на '{}'", userId, updated, status);
+            Map<Long, BookingStatusView> current = bookingRepository.findStatusViews(changed.stream()
+                            .map(BookingStatusView::getId)
+                            .collect(Collectors.toList())).stream()
+                    .collect(Collectors.toMap(BookingStatusView::getId, Function.identity()));
+            for (BookingStatusView booking : changed) {
+                BookingStatusView after = current.get(booking.getId());
+                if (after != null && after.getStatus() == status && after.getVersion() == booking.getVersion() + 1) {
+                    bookingIntervalIndex.update(booking.getItemId(), booking.getId(), status, booking.getStart(),
+                            booking.getEnd());
                 } else {
-                    throw new NotAvailableBookingException(String.format(
-                            "Невозможно изменить статус на '%s'",
-                            Status.APPROVED));
+                    results.put(booking.getId(), new BookingStatusResult(booking.getId(), BookingStatusOutcome.CONFLICT,
+                            String.format("Бронирование id = %s было изменено другим запросом", booking.getId())));
                 }
-            } else if (booking.getStatus() != Status.REJECTED) {
-                booking.setStatus(Status.REJECTED);
-            } else {
-                throw new NotAvailableBookingException(String.format(
-                        "Невозможно изменить статус на '%s'",
-                        Status.REJECTED));
             }
-            log.info("Изменен статус бронирования id = {}", bookingId);
-            return bookingRepository.save(booking);
-        } else {
-            throw new NotFoundUserException(String.format("Данная вещь не принадлежит юзеру id = %s", userId));
         }
+        return new ArrayList<>(results.values());
     }
 
     @Override
-    public List<Booking> getAllBooking(BookingDtoState bookingDtoState, int from, int size) {
+    @Transactional(readOnly = true)
+    public List<BookingDtoWithItem> getAllBooking(BookingDtoState bookingDtoState, int from, int size) {
         if (userRepository.findById(bookingDtoState.getUserId()).isPresent()) {
             int page = from / size;
-            Pageable pageable = PageRequest.of(page, size, Sort.by("start").descending());
+            Pageable pageable = PageRequest.of(page, size, BOOKING_ORDER);
             log.info("Запрошены бронирования пользователя id = {}", bookingDtoState.getUserId());
             switch (bookingDtoState.getState()) {
                 case PAST:
                     return bookingRepository.findByBooker_IdAndEndIsBefore(bookingDtoState.getUserId(),
-                            LocalDateTime.now(), pageable).getContent();
+                            LocalDateTime.now(), pageable);
                 case FUTURE:
                     return bookingRepository.findByBooker_IdAndStartIsAfter(bookingDtoState.getUserId(),
-                            LocalDateTime.now(), pageable).getContent();
+                            LocalDateTime.now(), pageable);
                 case CURRENT:
                     return bookingRepository.findCurrentBooking(bookingDtoState.getUserId(),
-                            LocalDateTime.now(), pageable).getContent();
+                            LocalDateTime.now(), pageable);
                 case ALL:
-                    return bookingRepository.findByBooker_Id(bookingDtoState.getUserId(), pageable).getContent();
+                    return bookingRepository.findByBooker_Id(bookingDtoState.getUserId(), pageable);
                 default:
                     return bookingRepository.findBookingByBookerAndStatus(
                             bookingDtoState.getUserId(),
                             Status.valueOf(bookingDtoState.getState().toString()),
-                            pageable).getContent();
+                            pageable);
             }
         } else {
             throw new NotFoundUserException(String.format("Пользователь id = %s не найден", bookingDtoState.getUserId()));
@@ -128,30 +305,225 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> getAllBookingByOwner(BookingDtoState bookingDtoState, int from, int size) {
+    @Transactional(readOnly = true)
+    public List<BookingDtoWithItem> getAllBookingByOwner(BookingDtoState bookingDtoState, int from, int size) {
         if (userRepository.findById(bookingDtoState.getUserId()).isPresent()) {
             int page = from / size;
-            Pageable pageable = PageRequest.of(page, size, Sort.by("start").descending());
+            Pageable pageable = PageRequest.of(page, size, BOOKING_ORDER);
             log.info("Запрошены бронирования вещей, принадлежащих пользователю id = {}", bookingDtoState.getUserId());
             switch (bookingDtoState.getState()) {
                 case PAST:
                     return bookingRepository.findBookingByOwnerPast(bookingDtoState.getUserId(),
-                            LocalDateTime.now(), pageable).getContent();
+                            LocalDateTime.now(), pageable);
                 case FUTURE:
                     return bookingRepository.findBookingByOwnerFuture(bookingDtoState.getUserId(),
-                            LocalDateTime.now(), pageable).getContent();
+                            LocalDateTime.now(), pageable);
                 case CURRENT:
                     return bookingRepository.findBookingByOwnerCurrent(bookingDtoState.getUserId(),
-                            LocalDateTime.now(), pageable).getContent();
+                            LocalDateTime.now(), pageable);
                 case ALL:
-                    return bookingRepository.findBookingByOwner(bookingDtoState.getUserId(), pageable).getContent();
+                    return bookingRepository.findBookingByOwner(bookingDtoState.getUserId(), pageable);
                 default:
                     return bookingRepository.findBookingByOwnerAndStatus(
                             bookingDtoState.getUserId(),
-                            Status.valueOf(bookingDtoState.getState().toString()), pageable).getContent();
+                            Status.valueOf(bookingDtoState.getState().toString()), pageable);
+            }
+        } else {
+            throw new NotFoundUserException(String.format("Пользователь id = %s не найден", bookingDtoState.getUserId()));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDtoWithItem> getAllBooking(BookingDtoState bookingDtoState, KeysetCursor cursor, int size) {
+        if (cursor == null) {
+            return getAllBooking(bookingDtoState, 0, size);
+        }
+        if (userRepository.findById(bookingDtoState.getUserId()).isPresent()) {
+            long userId = bookingDtoState.getUserId();
+            Pageable pageable = PageRequest.of(0, size);
+            log.info("Запрошены бронирования пользователя id = {} после курсора {}", userId, cursor);
+            switch (bookingDtoState.getState()) {
+                case PAST:
+                    return bookingRepository.findBookerBookingsPastAfterCursor(userId, LocalDateTime.now(),
+                            cursor.getPosition(), cursor.getId(), pageable);
+                case FUTURE:
+                    return bookingRepository.findBookerBookingsFutureAfterCursor(userId, LocalDateTime.now(),
+                            cursor.getPosition(), cursor.getId(), pageable);
+                case CURRENT:
+                    return bookingRepository.findBookerBookingsCurrentAfterCursor(userId, LocalDateTime.now(),
+                            cursor.getPosition(), cursor.getId(), pageable);
+                case ALL:
+                    return bookingRepository.findBookerBookingsAfterCursor(userId,
+                            cursor.getPosition(), cursor.getId(), pageable);
+                default:
+                    return bookingRepository.findBookerBookingsByStatusAfterCursor(userId,
+                            Status.valueOf(bookingDtoState.getState().toString()),
+                            cursor.getPosition(), cursor.getId(), pageable);
             }
         } else {
             throw new NotFoundUserException(String.format("Пользователь id = %s не найден", bookingDtoState.getUserId()));
         }
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDtoWithItem> getAllBookingByOwner(BookingDtoState bookingDtoState, KeysetCursor cursor, int size) {
+        if (cursor == null) {
+            return getAllBookingByOwner(bookingDtoState, 0, size);
+        }
+        if (userRepository.findById(bookingDtoState.getUserId()).isPresent()) {
+            long userId = bookingDtoState.getUserId();
+            Pageable pageable = PageRequest.of(0, size);
+            log.info("Запрошены бронирования вещей, принадлежащих пользователю id = {}, после курсора {}",
+                    userId, cursor);
+            switch (bookingDtoState.getState()) {
+                case PAST:
+                    return bookingRepository.findOwnerBookingsPastAfterCursor(userId, LocalDateTime.now(),
+                            cursor.getPosition(), cursor.getId(), pageable);
+                case FUTURE:
+                    return bookingRepository.findOwnerBookingsFutureAfterCursor(userId, LocalDateTime.now(),
+                            cursor.getPosition(), cursor.getId(), pageable);
+                case CURRENT:
+                    return bookingRepository.findOwnerBookingsCurrentAfterCursor(userId, LocalDateTime.now(),
+                            cursor.getPosition(), cursor.getId(), pageable);
+                case ALL:
+                    return bookingRepository.findOwnerBookingsAfterCursor(userId,
+                            cursor.getPosition(), cursor.getId(), pageable);
+                default:
+                    return bookingRepository.findOwnerBookingsByStatusAfterCursor(userId,
+                            Status.valueOf(bookingDtoState.getState().toString()),
+                            cursor.getPosition(), cursor.getId(), pageable);
+            }
+        } else {
+            throw new NotFoundUserException(String.format("Пользователь id = %s не найден", bookingDtoState.getUserId()));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingStats getBookingStats(long userId) {
+        if (userRepository.existsById(userId)) {
+            log.info("Запрошена статистика бронирований пользователя id = {}", userId);
+            return bookingRepository.countBookerBookingsByState(userId, LocalDateTime.now());
+        } else {
+            throw new NotFoundUserException(String.format("Пользователь id = %s не найден", userId));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingStats getBookingStatsByOwner(long userId) {
+        if (userRepository.existsById(userId)) {
+            log.info("Запрошена статистика бронирований вещей, принадлежащих пользователю id = {}", userId);
+            return bookingRepository.countOwnerBookingsByState(userId, LocalDateTime.now());
+        } else {
+            throw new NotFoundUserException(String.format("Пользователь id = %s не найден", userId));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void checkUser(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundUserException(String.format("Пользователь id = %s не найден", userId));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBookings(long userId, Consumer<BookingDtoWithItem> consumer) {
+        log.info("Выгрузка бронирований пользователя id = {}", userId);
+        try (Stream<BookingDtoWithItem> bookings = bookingRepository.streamBookerBookings(userId)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBookingsByOwner(long userId, Consumer<BookingDtoWithItem> consumer) {
+        log.info("Выгрузка бронирований вещей, принадлежащих пользователю id = {}", userId);
+        try (Stream<BookingDtoWithItem> bookings = bookingRepository.streamOwnerBookings(userId)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    /**
+     * Занятые периоды вещей пакета читаются одним запросом к базе уже под блокировкой вещей, а не из
+     * индекса: дерево может не знать о бронированиях других экземпляров сервера, и одно пропущенное
+     * пересечение отклонило бы ограничением базы весь пакет, а не одно бронирование.
+     */
+    private Map<Long, BookingIntervalTree> findBusyPeriods(Collection<Long> itemIds, List<BookingDto> bookingDtos) {
+        Map<Long, BookingIntervalTree> periods = new HashMap<>();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (BookingDto bookingDto : bookingDtos) {
+            if (!itemIds.contains(bookingDto.getItemId())
+                    || bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+                continue;
+            }
+            if (from == null || bookingDto.getStart().isBefore(from)) {
+                from = bookingDto.getStart();
+            }
+            if (to == null || bookingDto.getEnd().isAfter(to)) {
+                to = bookingDto.getEnd();
+            }
+        }
+        if (from == null) {
+            return periods;
+        }
+        for (ItemBookingPeriod period : bookingRepository.findItemsActivePeriodsBetween(itemIds, from, to,
+                BookingIntervalIndex.ACTIVE_STATUSES)) {
+            periods.computeIfAbsent(period.getItemId(), id -> new BookingIntervalTree(LocalDateTime.MIN))
+                    .put(period.getId(), period.getStart(), period.getEnd());
+        }
+        return periods;
+    }
+
+    private boolean hasBatchOverlap(Map<Long, BookingIntervalTree> batchPeriods, BookingDto bookingDto) {
+        BookingIntervalTree periods = batchPeriods.get(bookingDto.getItemId());
+        return periods != null && bookingDto.getStart() != null && bookingDto.getEnd() != null
+                && periods.hasOverlap(bookingDto.getStart(), bookingDto.getEnd(), 0);
+    }
+
+    private boolean hasApprovalOverlap(Map<Long, BookingIntervalTree> batchPeriods, BookingStatusView booking) {
+        if (bookingIntervalIndex.hasOverlap(booking.getItemId(), booking.getStart(), booking.getEnd(), booking.getId())) {
+            return true;
+        }
+        BookingIntervalTree periods = batchPeriods.get(booking.getItemId());
+        return periods != null && booking.getStart() != null && booking.getEnd() != null
+                && periods.hasOverlap(booking.getStart(), booking.getEnd(), booking.getId());
+    }
+
+    private <T> T excludeOverlap(Collection<Long> itemIds, Supplier<T> action) {
+        try {
+            return action.get();
+        } catch (DataIntegrityViolationException e) {
+            if (!isExclusionViolation(e)) {
+                throw e;
+            }
+            itemIds.forEach(bookingIntervalIndex::invalidate);
+            log.warn("Пересечение бронирований вещей {} отклонено ограничением базы данных", itemIds);
+            throw new NotAvailableBookingException(itemIds.size() == 1
+                    ? String.format("Вещь с id = %s уже забронирована на указанный период", itemIds.iterator().next())
+                    : String.format("Одна из вещей %s уже забронирована на указанный период", itemIds));
+        }
+    }
+
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkOverlap(long itemId, LocalDateTime start, LocalDateTime end, long bookingId) {
+        if (bookingIntervalIndex.hasOverlap(itemId, start, end, bookingId)) {
+            throw new NotAvailableBookingException(String.format(
+                    "Вещь с id = %s уже забронирована на указанный период",
+                    itemId));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingStats {
+    private long all;
+    private long current;
+    private long past;
+    private long future;
+    private long waiting;
+    private long approved;
+    private long rejected;
+    private long canceled;
+}
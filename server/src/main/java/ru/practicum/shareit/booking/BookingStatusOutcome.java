@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking;
+
+public enum BookingStatusOutcome {
+    UPDATED,
+    NOT_FOUND,
+    NOT_OWNER,
+    UNCHANGED,
+    NOT_AVAILABLE,
+    CONFLICT
+}
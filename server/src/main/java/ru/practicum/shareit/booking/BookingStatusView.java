@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+public interface BookingStatusView {
+    long getId();
+
+    long getItemId();
+
+    long getOwnerId();
+
+    Status getStatus();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    long getVersion();
+}
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.booking;
+
+public interface ItemBookingPeriod extends BookingPeriod {
+    long getItemId();
+}
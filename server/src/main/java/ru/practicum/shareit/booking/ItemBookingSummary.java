@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "item_booking_summary")
+public class ItemBookingSummary implements Persistable<Long> {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+    private Long lastBookingId;
+    private Long lastBookerId;
+    private LocalDateTime lastEnd;
+    private Long nextBookingId;
+    private Long nextBookerId;
+    private LocalDateTime nextEnd;
+    private LocalDateTime validUntil;
+    @Transient
+    private boolean created;
+
+    public ItemBookingSummary(long itemId) {
+        this.itemId = itemId;
+        this.created = true;
+    }
+
+    @Override
+    public Long getId() {
+        return itemId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    public boolean isValidAt(LocalDateTime now) {
+        return validUntil == null || now.isBefore(validUntil);
+    }
+
+    public void add(long bookingId, long bookerId, LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (start == null || end == null) {
+            return;
+        }
+        if (end.isBefore(now) && (lastEnd == null || end.isAfter(lastEnd))) {
+            lastBookingId = bookingId;
+            lastBookerId = bookerId;
+            lastEnd = end;
+        }
+        if (start.isAfter(now) && (nextEnd == null || end.isBefore(nextEnd))) {
+            nextBookingId = bookingId;
+            nextBookerId = bookerId;
+            nextEnd = end;
+        }
+        LocalDateTime boundary = start.isAfter(now) ? start : end;
+        if (boundary.isAfter(now) && (validUntil == null || boundary.isBefore(validUntil))) {
+            validUntil = boundary;
+        }
+    }
+
+    @PostLoad
+    @PostPersist
+    private void markPersisted() {
+        created = false;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long> {
+    @Query(value = "select s.itemId from ItemBookingSummary s " +
+            "where s.validUntil <= ?1 " +
+            "order by s.validUntil")
+    List<Long> findStaleItemIds(LocalDateTime now, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select s from ItemBookingSummary s " +
+            "where s.itemId in ?1 " +
+            "order by s.itemId")
+    List<ItemBookingSummary> findAllForUpdate(Collection<Long> itemIds);
+}
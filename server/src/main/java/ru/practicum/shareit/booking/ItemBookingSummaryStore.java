@@ -0,0 +1,135 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Последнее завершившееся и ближайшее будущее бронирование каждой вещи.
+ * Строка остается верной до valid_until — ближайшего начала или окончания бронирования вещи,
+ * после этого ее пересчитывает планировщик, а до пересчета значения вычисляются запросом.
+ * Изменение строк идет под блокировкой select for update, чтобы пересчет и новое бронирование
+ * не затирали друг друга.
+ */
+@Slf4j
+@Component
+public class ItemBookingSummaryStore {
+    private static final String LAST_BOOKING = "LAST";
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ItemBookingSummaryStore(ItemBookingSummaryRepository summaryRepository,
+                                   BookingRepository bookingRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${shareit.booking.summary.batch-size:500}") int batchSize) {
+        this.summaryRepository = summaryRepository;
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public void create(long itemId) {
+        summaryRepository.save(new ItemBookingSummary(itemId));
+    }
+
+    public Map<Long, ItemBookingSummary> get(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, ItemBookingSummary> summaries = summaryRepository.findAllById(itemIds).stream()
+                .filter(s -> s.isValidAt(now))
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+        if (summaries.size() < itemIds.size()) {
+            List<Long> staleIds = itemIds.stream()
+                    .filter(id -> !summaries.containsKey(id))
+                    .collect(Collectors.toList());
+            summaries.putAll(compute(staleIds, now));
+        }
+        return summaries;
+    }
+
+    public void update(Collection<Booking> bookings, LocalDateTime now) {
+        Map<Long, List<Booking>> bookingsByItem = bookings.stream()
+                .collect(Collectors.groupingBy(b -> b.getItem().getId()));
+        List<Long> staleIds = new ArrayList<>();
+        Map<Long, ItemBookingSummary> summaries = lock(bookingsByItem.keySet());
+        for (Map.Entry<Long, List<Booking>> entry : bookingsByItem.entrySet()) {
+            ItemBookingSummary summary = summaries.get(entry.getKey());
+            if (summary == null || !summary.isValidAt(now)) {
+                staleIds.add(entry.getKey());
+            } else {
+                entry.getValue().forEach(b -> summary.add(b.getId(), b.getBooker().getId(), b.getStart(), b.getEnd(), now));
+            }
+        }
+        if (!staleIds.isEmpty()) {
+            refresh(staleIds, summaries, now);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.summary.refresh-delay:60000}")
+    public void rollForward() {
+        int refreshed;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            refreshed = transactionTemplate.execute(status -> {
+                List<Long> itemIds = summaryRepository.findStaleItemIds(now, PageRequest.of(0, batchSize));
+                if (!itemIds.isEmpty()) {
+                    refresh(itemIds, lock(itemIds), now);
+                }
+                return itemIds.size();
+            });
+            log.debug("Пересчитаны бронирования {} вещей", refreshed);
+        } while (refreshed == batchSize);
+    }
+
+    private Map<Long, ItemBookingSummary> lock(Collection<Long> itemIds) {
+        return summaryRepository.findAllForUpdate(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+    }
+
+    private void refresh(Collection<Long> itemIds, Map<Long, ItemBookingSummary> stored, LocalDateTime now) {
+        for (ItemBookingSummary computed : compute(itemIds, now).values()) {
+            ItemBookingSummary summary = stored.getOrDefault(computed.getItemId(), computed);
+            summary.setLastBookingId(computed.getLastBookingId());
+            summary.setLastBookerId(computed.getLastBookerId());
+            summary.setLastEnd(computed.getLastEnd());
+            summary.setNextBookingId(computed.getNextBookingId());
+            summary.setNextBookerId(computed.getNextBookerId());
+            summary.setNextEnd(computed.getNextEnd());
+            summary.setValidUntil(computed.getValidUntil());
+            summaryRepository.save(summary);
+        }
+    }
+
+    private Map<Long, ItemBookingSummary> compute(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, ItemBookingSummary> summaries = new HashMap<>();
+        itemIds.forEach(id -> summaries.put(id, new ItemBookingSummary(id)));
+        bookingRepository.findItemBookingBoundaries(itemIds, now)
+                .forEach(b -> summaries.get(b.getItemId()).setValidUntil(b.getValidUntil()));
+        for (ItemBookingView booking : bookingRepository.findLastAndNextItemBookings(itemIds, now)) {
+            ItemBookingSummary summary = summaries.get(booking.getItemId());
+            if (LAST_BOOKING.equals(booking.getKind())) {
+                summary.setLastBookingId(booking.getId());
+                summary.setLastBookerId(booking.getBookerId());
+                summary.setLastEnd(booking.getEndDate());
+            } else {
+                summary.setNextBookingId(booking.getId());
+                summary.setNextBookerId(booking.getBookerId());
+                summary.setNextEnd(booking.getEndDate());
+            }
+        }
+        return summaries;
+    }
+}
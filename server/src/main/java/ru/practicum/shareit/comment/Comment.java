@@ -12,14 +12,17 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "comments")
 @NoArgsConstructor
+@NamedEntityGraph(name = Comment.WITH_AUTHOR_GRAPH, attributeNodes = @NamedAttributeNode("author"))
 public class Comment {
+    public static final String WITH_AUTHOR_GRAPH = "Comment.withAuthor";
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_seq", allocationSize = 50)
     private long id;
     private String text;
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private Item item;
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private User author;
     private LocalDateTime created = LocalDateTime.now();
 }
\ No newline at end of file
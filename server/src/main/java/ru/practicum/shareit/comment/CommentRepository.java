@@ -1,10 +1,19 @@
 package ru.practicum.shareit.comment;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-import java.util.Set;
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    Set<Comment> findCommentsByItem_Id(long itemId);
+    @EntityGraph(Comment.WITH_AUTHOR_GRAPH)
+    List<Comment> findCommentsByItem_Id(long itemId);
+
+    @EntityGraph(Comment.WITH_AUTHOR_GRAPH)
+    @Query(value = "select c from Comment c " +
+            "where c.item.id in ?1")
+    List<Comment> findCommentsByItemIds(Collection<Long> itemIds);
 }
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+/**
+ * Транзакции загрузки общих кэшей. Кэш отдается всем пользователям, поэтому заполняется только
+ * с основной базы: отставшая реплика закрепила бы в нем старые данные до следующей перезагрузки.
+ * Если чтение с реплики включено, внутри read-only транзакции открывается отдельная транзакция
+ * на запись, иначе загрузка присоединяется к текущей транзакции и не занимает второе соединение.
+ * Такие транзакции не считаются записью пользователя и не переключают его чтение на основную базу.
+ */
+@Component
+public class PrimaryReadTemplate {
+    static final String TRANSACTION_NAME = PrimaryReadTemplate.class.getName();
+    private final TransactionTemplate joining;
+    private final TransactionTemplate separate;
+    private final boolean replicaEnabled;
+
+    public PrimaryReadTemplate(PlatformTransactionManager transactionManager,
+                               @Value("${shareit.datasource.replica.enabled:false}") boolean replicaEnabled) {
+        this.replicaEnabled = replicaEnabled;
+        this.joining = new TransactionTemplate(transactionManager);
+        this.joining.setName(TRANSACTION_NAME);
+        this.separate = new TransactionTemplate(transactionManager);
+        this.separate.setName(TRANSACTION_NAME);
+        this.separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public <T> T execute(TransactionCallback<T> action) {
+        boolean readOnly = replicaEnabled && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return (readOnly ? separate : joining).execute(action);
+    }
+
+    public void executeWithoutResult(Consumer<TransactionStatus> action) {
+        execute(status -> {
+            action.accept(status);
+            return null;
+        });
+    }
+
+    /**
+     * Для вызовов из колбэков завершения транзакции, когда присоединиться к ней уже нельзя.
+     */
+    public <T> T executeInNewTransaction(TransactionCallback<T> action) {
+        return separate.execute(action);
+    }
+}
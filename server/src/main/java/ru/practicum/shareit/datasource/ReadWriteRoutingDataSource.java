@@ -0,0 +1,114 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.TransactionCallbacks;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Направляет read-only транзакции на реплику, остальные запросы - на основную базу.
+ * Пользователь, недавно закоммитивший изменения, читает с основной базы в течение max-staleness,
+ * чтобы увидеть свою запись. Если реплика недоступна, запросы идут на основную базу,
+ * а следующая попытка подключиться к реплике делается через retry-delay.
+ * Транзакции {@link PrimaryReadTemplate} идут на основную базу и не считаются записью пользователя.
+ * Решение принимается при получении физического соединения, поэтому источник нужно оборачивать
+ * в LazyConnectionDataSourceProxy: тогда признак read-only транзакции уже установлен.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+    private static final int MAX_TRACKED_WRITERS = 10000;
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxStalenessNanos;
+    private final long retryDelayNanos;
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+    private volatile long replicaRetryAt;
+    private volatile boolean replicaDown;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration maxStaleness,
+                                      Duration retryDelay) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.retryDelayNanos = retryDelay.toNanos();
+    }
+
+    public static void setCurrentUser(Long userId) {
+        if (userId == null) {
+            CURRENT_USER.remove();
+        } else {
+            CURRENT_USER.set(userId);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection getConnection(ConnectionFactory factory) throws SQLException {
+        if (useReplica()) {
+            try {
+                Connection connection = factory.connect(replica);
+                replicaDown = false;
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                markReplicaDown(e);
+            }
+        }
+        return factory.connect(primary);
+    }
+
+    private boolean useReplica() {
+        boolean transactional = TransactionSynchronizationManager.isActualTransactionActive();
+        Long userId = CURRENT_USER.get();
+        if (!transactional || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (transactional && userId != null && !PrimaryReadTemplate.TRANSACTION_NAME.equals(
+                    TransactionSynchronizationManager.getCurrentTransactionName())) {
+                TransactionCallbacks.afterCommit(() -> recordWrite(userId), () -> {
+                });
+            }
+            return false;
+        }
+        if (userId != null && isRecentWriter(userId)) {
+            return false;
+        }
+        return !replicaDown || System.nanoTime() - replicaRetryAt >= 0;
+    }
+
+    private boolean isRecentWriter(long userId) {
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt != null && System.nanoTime() - writtenAt < maxStalenessNanos;
+    }
+
+    private void recordWrite(long userId) {
+        long now = System.nanoTime();
+        if (lastWrites.size() >= MAX_TRACKED_WRITERS) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt >= maxStalenessNanos);
+        }
+        lastWrites.put(userId, now);
+    }
+
+    private void markReplicaDown(Exception e) {
+        replicaRetryAt = System.nanoTime() + retryDelayNanos;
+        replicaDown = true;
+        log.warn("Реплика недоступна, чтение переключено на основную базу: {}", e.getMessage());
+    }
+
+    private interface ConnectionFactory {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
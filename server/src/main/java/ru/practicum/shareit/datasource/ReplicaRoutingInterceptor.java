@@ -0,0 +1,27 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class ReplicaRoutingInterceptor implements HandlerInterceptor {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String userId = request.getHeader(USER_HEADER);
+        try {
+            ReadWriteRoutingDataSource.setCurrentUser(userId == null ? null : Long.valueOf(userId));
+        } catch (NumberFormatException e) {
+            ReadWriteRoutingDataSource.setCurrentUser(null);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReadWriteRoutingDataSource.setCurrentUser(null);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Ответ сохраняется в таблицу idempotency_keys в той же транзакции, что и изменения самого запроса.
+ * Если два запроса с одним ключом выполняются одновременно, второй откатывается на первичном ключе
+ * и возвращает ответ первого. Записи старше ttl удаляет планировщик.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public DatabaseIdempotencyStore(IdempotencyRecordRepository recordRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    @Value("${shareit.idempotency.ttl:PT24H}") Duration ttl) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public <T> T execute(long userId, String operation, String key, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        String id = IdempotencyStore.id(userId, operation, key);
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                Optional<IdempotencyRecord> stored = recordRepository.findById(id);
+                if (stored.isPresent() && stored.get().getCreated().isAfter(now.minus(ttl))) {
+                    log.info("Повтор запроса {} с ключом идемпотентности {}", operation, key);
+                    return read(stored.get(), responseType);
+                }
+                T response = action.get();
+                IdempotencyRecord record = stored.orElseGet(() -> new IdempotencyRecord(id, null, now));
+                record.setResponse(write(response));
+                record.setCreated(now);
+                recordRepository.saveAndFlush(record);
+                return response;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.info("Запрос {} с ключом идемпотентности {} уже выполнен другим запросом", operation, key);
+            return recordRepository.findById(id)
+                    .map(record -> read(record, responseType))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.idempotency.cleanup-delay:600000}")
+    public void deleteExpired() {
+        int deleted = transactionTemplate.execute(status ->
+                recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+        log.debug("Удалено {} устаревших ключей идемпотентности", deleted);
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(IdempotencyRecord record, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(record.getResponse(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord implements Persistable<String> {
+    @Id
+    private String id;
+    private String response;
+    private LocalDateTime created;
+    @Transient
+    private boolean fresh;
+
+    public IdempotencyRecord(String id, String response, LocalDateTime created) {
+        this.id = id;
+        this.response = response;
+        this.created = created;
+        this.fresh = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+}
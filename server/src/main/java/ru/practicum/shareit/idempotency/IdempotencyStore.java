@@ -0,0 +1,18 @@
+package ru.practicum.shareit.idempotency;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyStore {
+    String HEADER = "Idempotency-Key";
+    int MAX_KEY_LENGTH = 64;
+
+    <T> T execute(long userId, String operation, String key, Class<T> responseType, Supplier<T> action);
+
+    static String id(long userId, String operation, String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(String.format(
+                    "Ключ идемпотентности должен содержать от 1 до %s символов", MAX_KEY_LENGTH));
+        }
+        return userId + ":" + operation + ":" + key;
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.idempotency;
+
+public class IdempotencyStoreFullException extends RuntimeException {
+
+    public IdempotencyStoreFullException(String message) {
+        super(message);
+    }
+}
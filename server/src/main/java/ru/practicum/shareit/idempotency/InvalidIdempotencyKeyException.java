@@ -0,0 +1,8 @@
+package ru.practicum.shareit.idempotency;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Ответы хранятся в памяти в порядке добавления: старейшие завершенные записи вытесняются при превышении
+ * max-entries и по истечении ttl. Повтор запроса, пришедший во время выполнения первого, ждет его ответа.
+ * Выполняющиеся запросы не вытесняются, иначе повтор выполнился бы второй раз; если ими занято все
+ * хранилище, новый ключ отклоняется.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class MemoryIdempotencyStore implements IdempotencyStore {
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public MemoryIdempotencyStore(@Value("${shareit.idempotency.ttl:PT24H}") Duration ttl,
+                                  @Value("${shareit.idempotency.max-entries:10000}") int maxEntries) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public <T> T execute(long userId, String operation, String key, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        String id = IdempotencyStore.id(userId, operation, key);
+        while (true) {
+            Entry entry;
+            boolean owner = false;
+            synchronized (entries) {
+                LocalDateTime expiredBefore = LocalDateTime.now().minus(ttl);
+                evict(expiredBefore, Integer.MAX_VALUE);
+                entry = entries.get(id);
+                if (entry == null) {
+                    evict(expiredBefore, maxEntries);
+                    if (entries.size() >= maxEntries) {
+                        throw new IdempotencyStoreFullException(String.format(
+                                "Выполняется слишком много запросов с ключом идемпотентности, максимум %s",
+                                maxEntries));
+                    }
+                    entry = new Entry(LocalDateTime.now());
+                    entries.put(id, entry);
+                    owner = true;
+                }
+            }
+            if (owner) {
+                return complete(id, entry, responseType, action);
+            }
+            try {
+                log.info("Повтор запроса {} с ключом идемпотентности {}", operation, key);
+                return responseType.cast(entry.response.join());
+            } catch (CompletionException e) {
+                log.debug("Первый запрос с ключом идемпотентности {} завершился ошибкой", key);
+            }
+        }
+    }
+
+    private <T> T complete(String id, Entry entry, Class<T> responseType, Supplier<T> action) {
+        try {
+            T response = action.get();
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(id, entry);
+            }
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void evict(LocalDateTime expiredBefore, int limit) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entries.size() < limit && entry.created.isAfter(expiredBefore)) {
+                break;
+            }
+            if (entry.response.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final LocalDateTime created;
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        Entry(LocalDateTime created) {
+            this.created = created;
+        }
+    }
+}
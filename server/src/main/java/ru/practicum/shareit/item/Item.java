@@ -11,17 +11,20 @@ import javax.persistence.*;
 @NoArgsConstructor
 @Entity
 @Table(name = "items")
+@NamedEntityGraph(name = Item.WITH_OWNER_GRAPH, attributeNodes = @NamedAttributeNode("owner"))
 public class Item {
+    public static final String WITH_OWNER_GRAPH = "Item.withOwner";
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private long id;
     @Column(nullable = false)
     private String name;
     private String description;
     private Boolean available;
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY)
     private ItemRequest request;
 
     public Item(long id, String name, String description, Boolean available) {
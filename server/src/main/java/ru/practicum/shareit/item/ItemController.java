@@ -1,28 +1,36 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.CommentDto;
 import ru.practicum.shareit.comment.CommentDtoFromRequest;
 import ru.practicum.shareit.comment.CommentMapper;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBooking;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/items")
 public class ItemController {
     private final ItemService itemService;
+    private final IdempotencyStore idempotencyStore;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, IdempotencyStore idempotencyStore) {
         this.itemService = itemService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @PostMapping
     public ItemDto createItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                              @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
                               @RequestBody ItemDto itemDto) {
-        return ItemMapper.toItemDto(itemService.createItem(itemDto, userId));
+        return idempotencyStore.execute(userId, "POST /items", idempotencyKey, ItemDto.class,
+                () -> ItemMapper.toItemDto(itemService.createItem(itemDto, userId)));
     }
 
     @PatchMapping("/{itemId}")
@@ -52,6 +60,15 @@ public class ItemController {
         return itemService.searchItems(text, from, size).stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
     }
 
+    @GetMapping("/{itemId}/availability")
+    public List<FreePeriod> getAvailability(@PathVariable long itemId,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                            LocalDateTime from,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                            LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto createComment(@RequestHeader("X-Sharer-User-Id") long userId,
                                     @RequestBody CommentDtoFromRequest comment,
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class ItemDatabaseSearch {
+    private final ItemRepository itemRepository;
+    private final boolean fullText;
+
+    public ItemDatabaseSearch(ItemRepository itemRepository,
+                              @Value("${shareit.search.full-text:true}") boolean fullText) {
+        this.itemRepository = itemRepository;
+        this.fullText = fullText;
+    }
+
+    public List<Item> search(String text, int from, int size) {
+        Pageable pageable = PageRequest.of(from / size, size);
+        if (fullText) {
+            return itemRepository.findItemsRanked(text, pageable);
+        }
+        return itemRepository.findItems(text, pageable);
+    }
+}
@@ -2,26 +2,61 @@ package ru.practicum.shareit.item;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
+    @Override
+    @EntityGraph(Item.WITH_OWNER_GRAPH)
+    Optional<Item> findById(Long itemId);
+
     Page<Item> findAllByOwnerId(Long userId, Pageable pageable);
 
     @Query(value = "SELECT * from items " +
-            "where lower(name) like lower(concat('%', ?1, '%')) " +
-            "or lower(description) like lower(concat('%', ?1, '%')) " +
-            "and available=true",
-            countQuery = "SELECT count(*) from items " +
-                    "where lower(name) like lower(concat('%', ?1, '%')) " +
-                    "or lower(description) like lower(concat('%', ?1, '%')) " +
-                    "and available=true",
+            "where available = true " +
+            "and (lower(name) like lower(concat('%', ?1, '%')) " +
+            "or lower(description) like lower(concat('%', ?1, '%'))) " +
+            "order by id",
+            nativeQuery = true)
+    List<Item> findItems(String text, Pageable pageable);
+
+    @Query(value = "SELECT * from items " +
+            "where available = true " +
+            "and (search_vector @@ plainto_tsquery('simple', ?1) " +
+            "or lower(name) like lower(concat('%', ?1, '%')) " +
+            "or lower(description) like lower(concat('%', ?1, '%'))) " +
+            "order by ts_rank(search_vector, plainto_tsquery('simple', ?1)) desc, id",
             nativeQuery = true)
-    Page<Item> findItems(String text, Pageable pageable);
+    List<Item> findItemsRanked(String text, Pageable pageable);
+
+    List<Item> findAllByIdIn(Collection<Long> ids);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available, " +
+            "i.owner.id as ownerId from Item i")
+    List<ItemSearchView> findAllForSearch();
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available, " +
+            "i.owner.id as ownerId from Item i where i.id = ?1")
+    Optional<ItemSearchView> findSearchViewById(long id);
+
+    @Query(value = "select i from Item i where i.request.id in ?1")
+    List<Item> findItemsByRequestIn(Collection<Long> requestIds);
 
-    @Query(value = "select i from Item i where i.request.id = ?1")
-    List<Item> findItemsByRequest(Long requestId);
+    default Map<Long, List<ItemDto>> findItemDtosByRequests(Collection<Long> requestIds) {
+        if (requestIds.isEmpty()) {
+            return Map.of();
+        }
+        return findItemsByRequestIn(requestIds).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,232 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.TransactionCallbacks;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный триграммный индекс по названию и описанию вещей.
+ * Для каждой триграммы хранится отсортированный массив id вещей, поиск пересекает
+ * списки начиная с самого короткого и проверяет кандидатов на вхождение подстроки.
+ * Изменения вещей применяются после коммита; после отката вещь перечитывается из базы,
+ * на случай если индекс был построен внутри откатившейся транзакции.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    public static final int GRAM = 3;
+    private static final String MEMORY_BACKEND = "memory";
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final PrimaryReadTemplate transactionTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, LongPostings> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private volatile boolean loaded;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           PrimaryReadTemplate transactionTemplate,
+                           @Value("${shareit.search.backend:memory}") String backend) {
+        this.itemRepository = itemRepository;
+        this.enabled = MEMORY_BACKEND.equals(backend);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public Optional<List<Long>> search(String text, int from, int size) {
+        String query = normalize(text);
+        if (!enabled || query.length() < GRAM) {
+            return Optional.empty();
+        }
+        loadIfNeeded();
+        lock.readLock().lock();
+        try {
+            List<LongPostings> lists = new ArrayList<>();
+            for (long gram : trigrams(query)) {
+                LongPostings list = postings.get(gram);
+                if (list == null) {
+                    return Optional.of(List.of());
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(LongPostings::size));
+            LongPostings smallest = lists.get(0);
+            List<Long> result = new ArrayList<>();
+            int skip = (from / size) * size;
+            int skipped = 0;
+            for (int i = 0; i < smallest.size() && result.size() < size; i++) {
+                long id = smallest.get(i);
+                if (containsAll(lists, id) && documents.get(id).matches(query)) {
+                    if (skipped < skip) {
+                        skipped++;
+                    } else {
+                        result.add(id);
+                    }
+                }
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Item item) {
+        if (!enabled) {
+            return;
+        }
+        long id = item.getId();
+        String name = item.getName();
+        String description = item.getDescription();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        TransactionCallbacks.afterCommit(() -> put(id, name, description, available), () -> reload(id));
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadIfNeeded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> itemRepository.findAllForSearch().forEach(s ->
+                    putDocument(s.getId(), s.getName(), s.getDescription(), Boolean.TRUE.equals(s.getAvailable()))));
+            loaded = true;
+            log.info("Построен поисковый индекс вещей: {} вещей, {} триграмм", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reload(long id) {
+        if (!loaded) {
+            return;
+        }
+        Optional<ItemSearchView> item = transactionTemplate.executeInNewTransaction(status ->
+                itemRepository.findSearchViewById(id));
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            if (item.isPresent()) {
+                ItemSearchView s = item.get();
+                putDocument(id, s.getName(), s.getDescription(), Boolean.TRUE.equals(s.getAvailable()));
+            } else {
+                removeDocument(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long id, String name, String description, boolean available) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                putDocument(id, name, description, available);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putDocument(long id, String name, String description, boolean available) {
+        Document document = new Document(normalize(name), normalize(description), available);
+        updateGrams(id, documents.get(id), document.grams());
+        documents.put(id, document);
+    }
+
+    private void removeDocument(long id) {
+        Document old = documents.remove(id);
+        if (old != null) {
+            updateGrams(id, old, Set.of());
+        }
+    }
+
+    private void updateGrams(long id, Document old, Set<Long> newGrams) {
+        Set<Long> oldGrams = old == null ? Set.of() : old.grams();
+        for (long gram : oldGrams) {
+            if (!newGrams.contains(gram)) {
+                LongPostings list = postings.get(gram);
+                list.remove(id);
+                if (list.size() == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        for (long gram : newGrams) {
+            if (!oldGrams.contains(gram)) {
+                postings.computeIfAbsent(gram, s -> new LongPostings()).add(id);
+            }
+        }
+    }
+
+    private static boolean containsAll(List<LongPostings> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static class Document {
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        Document(String name, String description, boolean available) {
+            this.name = name;
+            this.description = description;
+            this.available = available;
+        }
+
+        boolean matches(String query) {
+            return available && (name.contains(query) || description.contains(query));
+        }
+
+        Set<Long> grams() {
+            Set<Long> grams = trigrams(name);
+            grams.addAll(trigrams(description));
+            return grams;
+        }
+    }
+}
@@ -5,7 +5,9 @@ import ru.practicum.shareit.comment.CommentDtoFromRequest;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBooking;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 public interface ItemService {
     Item createItem(ItemDto itemDto, long userId);
@@ -19,4 +21,6 @@ public interface ItemService {
     Collection<Item> searchItems(String text, int from, int size);
 
     Comment createComment(long userId, long itemId, CommentDtoFromRequest comment);
+
+    List<FreePeriod> getAvailability(long itemId, LocalDateTime from, LocalDateTime to);
 }
\ No newline at end of file
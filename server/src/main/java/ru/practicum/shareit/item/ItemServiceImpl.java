@@ -5,9 +5,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.InvalidPeriodException;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingPeriod;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.ItemBookingSummary;
+import ru.practicum.shareit.booking.ItemBookingSummaryStore;
 import ru.practicum.shareit.booking.NotAvailableBookingException;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentDtoFromRequest;
@@ -15,38 +21,61 @@ import ru.practicum.shareit.comment.CommentMapper;
 import ru.practicum.shareit.comment.CommentRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBooking;
+import ru.practicum.shareit.requests.ItemRequestFeedCache;
+import ru.practicum.shareit.requests.ItemRequestMatcher;
 import ru.practicum.shareit.requests.ItemRequestRepository;
 import ru.practicum.shareit.user.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ItemServiceImpl implements ItemService {
+    private static final Duration MAX_AVAILABILITY_PERIOD = Duration.ofDays(366);
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemDatabaseSearch itemDatabaseSearch;
+    private final ItemBookingSummaryStore itemBookingSummaryStore;
+    private final ItemRequestFeedCache itemRequestFeedCache;
+    private final ItemRequestMatcher itemRequestMatcher;
 
     public ItemServiceImpl(ItemRepository itemRepository,
                            UserRepository userRepository,
                            BookingRepository bookingRepository,
                            CommentRepository commentRepository,
-                           ItemRequestRepository itemRequestRepository) {
+                           ItemRequestRepository itemRequestRepository,
+                           ItemSearchIndex itemSearchIndex,
+                           ItemDatabaseSearch itemDatabaseSearch,
+                           ItemBookingSummaryStore itemBookingSummaryStore,
+                           ItemRequestFeedCache itemRequestFeedCache,
+                           ItemRequestMatcher itemRequestMatcher) {
         this.itemRepository = itemRepository;
         this.userRepository = userRepository;
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
         this.itemRequestRepository = itemRequestRepository;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemDatabaseSearch = itemDatabaseSearch;
+        this.itemBookingSummaryStore = itemBookingSummaryStore;
+        this.itemRequestFeedCache = itemRequestFeedCache;
+        this.itemRequestMatcher = itemRequestMatcher;
     }
 
     @Override
+    @Transactional
     public Item createItem(ItemDto itemDto, long userId) {
         Item item = ItemMapper.toItem(itemDto);
         item.setOwner(userRepository.findById(userId).orElseThrow());
@@ -54,17 +83,27 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(itemRequestRepository.findById(itemDto.getRequestId()).get());
         }
         log.info("Добавлена вещь {}", item.getName());
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.index(savedItem);
+        itemRequestFeedCache.putItem(savedItem);
+        itemRequestMatcher.itemSaved(savedItem);
+        itemBookingSummaryStore.create(savedItem.getId());
+        return savedItem;
     }
 
     @Override
+    @Transactional
     public Item updateItem(long userId, ItemDto itemDto, long itemId) {
         Item item = ItemMapper.toItem(itemDto);
         Item updateItem = itemRepository.findById(itemId).orElseThrow();
         if (updateItem.getOwner().equals(userRepository.findById(userId).orElseThrow())) {
             updateFields(item, updateItem, itemDto);
             log.info("Обновлена вещь id = {}", item.getId());
-            return itemRepository.save(updateItem);
+            Item savedItem = itemRepository.save(updateItem);
+            itemSearchIndex.index(savedItem);
+            itemRequestFeedCache.putItem(savedItem);
+            itemRequestMatcher.itemSaved(savedItem);
+            return savedItem;
         } else {
             throw new NotFoundItemException(String.format("У пользователя с id = %s нет вещи с id = %s",
                     userId, itemId));
@@ -72,14 +111,15 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemDtoWithBooking getItem(long itemId, long userId) {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundItemException(String.format("Вещь с id = %s не найдена", itemId)));
         ItemDtoWithBooking itemDtoWithBooking = ItemMapper.toItemDtoWithBooking(item);
         if (item.getOwner().getId() == userId) {
-            setBookings(itemDtoWithBooking, itemId);
+            setBookings(Map.of(itemId, itemDtoWithBooking));
         }
-        Set<Comment> comments = commentRepository.findCommentsByItem_Id(itemId);
+        List<Comment> comments = commentRepository.findCommentsByItem_Id(itemId);
         if (!comments.isEmpty()) {
             itemDtoWithBooking.setComments(
                     comments.stream()
@@ -91,44 +131,50 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<ItemDtoWithBooking> getAllItem(long userId, int from, int size) {
         if (size > 0 && from >= 0) {
             int page = from / size;
             Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
             List<Item> items = itemRepository.findAllByOwnerId(userId, pageable).getContent();
-            List<ItemDtoWithBooking> itemsDto = items.stream()
+            Map<Long, ItemDtoWithBooking> itemsDto = items.stream()
                     .map(ItemMapper::toItemDtoWithBooking)
-                    .collect(Collectors.toList());
-            for (int i = 0; i < itemsDto.size(); i++) {
-                setBookings(itemsDto.get(i), items.get(i).getId());
-                Set<Comment> comments = commentRepository.findCommentsByItem_Id(itemsDto.get(i).getId());
-                if (!comments.isEmpty()) {
-                    itemsDto.get(i).setComments(
-                            comments.stream()
-                                    .map(CommentMapper::toCommentDto)
-                                    .collect(Collectors.toSet()));
-                }
+                    .collect(Collectors.toMap(ItemDtoWithBooking::getId, s -> s, (a, b) -> a, LinkedHashMap::new));
+            if (!itemsDto.isEmpty()) {
+                setBookings(itemsDto);
+                commentRepository.findCommentsByItemIds(itemsDto.keySet())
+                        .forEach(s -> itemsDto.get(s.getItem().getId()).getComments()
+                                .add(CommentMapper.toCommentDto(s)));
             }
             log.info("Запрошены вещи пользователя id = {}", userId);
-            return itemsDto;
+            return new ArrayList<>(itemsDto.values());
         } else {
             throw new ArithmeticException("Неверное значение индекса первого элемента или количества элементов для отображения");
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Item> searchItems(String text, int from, int size) {
         if (!text.isEmpty()) {
-                int page = from / size;
-                Pageable pageable = PageRequest.of(page, size);
-                log.info("Выполнен поиск вещей по тексту: '{}'", text);
-                return itemRepository.findItems(text, pageable).getContent();
+            log.info("Выполнен поиск вещей по тексту: '{}'", text);
+            Optional<List<Long>> ids = itemSearchIndex.search(text, from, size);
+            if (ids.isPresent()) {
+                if (ids.get().isEmpty()) {
+                    return new ArrayList<>();
+                }
+                return itemRepository.findAllByIdIn(ids.get()).stream()
+                        .sorted(Comparator.comparing(Item::getId))
+                        .collect(Collectors.toList());
+            }
+            return itemDatabaseSearch.search(text, from, size);
         } else {
             return new ArrayList<>();
         }
     }
 
     @Override
+    @Transactional
     public Comment createComment(long userId, long itemId, CommentDtoFromRequest comment) {
         List<Booking> booking = bookingRepository.findByBooker_IdAndEndIsBefore(userId, LocalDateTime.now());
         if (booking.stream().anyMatch(s -> s.getItem().getId() == itemId)) {
@@ -145,6 +191,37 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<FreePeriod> getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidPeriodException("Начало периода должно быть раньше его окончания");
+        }
+        if (Duration.between(from, to).compareTo(MAX_AVAILABILITY_PERIOD) > 0) {
+            throw new InvalidPeriodException(String.format("Период не может быть длиннее %s дней",
+                    MAX_AVAILABILITY_PERIOD.toDays()));
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundItemException(String.format("Вещь с id = %s не найдена", itemId));
+        }
+        List<FreePeriod> freePeriods = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (BookingPeriod busy : bookingRepository.findActivePeriodsBetween(itemId, from, to,
+                BookingIntervalIndex.ACTIVE_STATUSES)) {
+            if (busy.getStart().isAfter(freeFrom)) {
+                freePeriods.add(new FreePeriod(freeFrom, busy.getStart()));
+            }
+            if (busy.getEnd().isAfter(freeFrom)) {
+                freeFrom = busy.getEnd();
+            }
+        }
+        if (freeFrom.isBefore(to)) {
+            freePeriods.add(new FreePeriod(freeFrom, to));
+        }
+        log.info("Запрошены свободные периоды вещи id = {} с {} по {}", itemId, from, to);
+        return freePeriods;
+    }
+
     private void updateFields(Item item, Item updateItem, ItemDto itemDto) {
         if (item.getName() != null) {
             updateItem.setName(item.getName());
@@ -160,14 +237,15 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
-    private void setBookings(ItemDtoWithBooking itemDtoWithBooking, long itemId) {
-        Booking lastBooking = bookingRepository.findLastItemBooking(itemId, LocalDateTime.now());
-        if (lastBooking != null) {
-            itemDtoWithBooking.setLastBooking(BookingMapper.toBookingDtoForItem(lastBooking));
-        }
-        Booking nextBooking = bookingRepository.findNextItemBooking(itemId, LocalDateTime.now());
-        if (nextBooking != null) {
-            itemDtoWithBooking.setNextBooking(BookingMapper.toBookingDtoForItem(nextBooking));
+    private void setBookings(Map<Long, ItemDtoWithBooking> itemsDto) {
+        for (ItemBookingSummary summary : itemBookingSummaryStore.get(itemsDto.keySet(), LocalDateTime.now()).values()) {
+            ItemDtoWithBooking itemDto = itemsDto.get(summary.getItemId());
+            if (summary.getLastBookingId() != null) {
+                itemDto.setLastBooking(BookingMapper.toLastBookingDto(summary));
+            }
+            if (summary.getNextBookingId() != null) {
+                itemDto.setNextBooking(BookingMapper.toNextBookingDto(summary));
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.item;
+
+import java.util.Arrays;
+
+public class LongPostings {
+    private long[] ids = new long[4];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public long get(int index) {
+        return ids[index];
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public void add(long id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            insertAt(-index - 1, id);
+        } else {
+            insertAt(size, id);
+        }
+    }
+
+    public void remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+    }
+
+    private void insertAt(int index, long id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+}
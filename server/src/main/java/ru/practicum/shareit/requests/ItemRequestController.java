@@ -1,6 +1,9 @@
 package ru.practicum.shareit.requests;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.KeysetCursor;
+import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -8,6 +11,7 @@ import java.util.List;
 @RestController
 @RequestMapping(path = "/requests")
 public class ItemRequestController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     private final ItemRequestService itemRequestService;
 
     public ItemRequestController(ItemRequestService itemRequestService) {
@@ -27,10 +31,21 @@ public class ItemRequestController {
     }
 
     @GetMapping(path = "/all")
-    public List<ItemRequestDto> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId,
-                                               @RequestParam(defaultValue = "0") int from,
-                                               @RequestParam(defaultValue = "10") int size) {
-        return itemRequestService.getAllRequest(userId, from, size);
+    public ResponseEntity<List<ItemRequestDto>> getAllRequests(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                               @RequestParam(defaultValue = "0") int from,
+                                                               @RequestParam(defaultValue = "10") int size,
+                                                               @RequestParam(required = false) String cursor) {
+        if (cursor == null) {
+            return ResponseEntity.ok(itemRequestService.getAllRequest(userId, from, size));
+        }
+        List<ItemRequestDto> requests = itemRequestService.getAllRequest(userId, KeysetCursor.decode(cursor), size);
+        if (requests.size() < size) {
+            return ResponseEntity.ok(requests);
+        }
+        ItemRequestDto last = requests.get(requests.size() - 1);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, new KeysetCursor(last.getCreated(), last.getId()).encode())
+                .body(requests);
     }
 
     @GetMapping(path = "/{requestId}")
@@ -38,4 +53,10 @@ public class ItemRequestController {
                                          @PathVariable long requestId) {
         return itemRequestService.getRequestById(userId, requestId);
     }
+
+    @GetMapping(path = "/{requestId}/suggestions")
+    public List<ItemDto> getSuggestions(@RequestHeader("X-Sharer-User-Id") long userId,
+                                        @PathVariable long requestId) {
+        return itemRequestService.getSuggestions(userId, requestId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,234 @@
+package ru.practicum.shareit.requests;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.KeysetCursor;
+import ru.practicum.shareit.TransactionCallbacks;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Общая лента последних запросов вместе с вещами, созданными в ответ на них.
+ * Запросы хранятся в кольцевом буфере фиксированного размера в порядке (created desc, id desc):
+ * новый запрос записывается в голову и вытесняет самый старый. Собственные запросы пользователя
+ * отфильтровываются при чтении. Если страница выходит за пределы окна, вызывающий код догружает
+ * ее из базы. Новые запросы и вещи попадают в ленту только после коммита.
+ * Лента полностью перечитывается не реже чем раз в ttl.
+ */
+@Slf4j
+@Component
+public class ItemRequestFeedCache {
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final PrimaryReadTemplate transactionTemplate;
+    private final Duration ttl;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Entry[] ring;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private int head;
+    private int size;
+    private boolean truncated;
+    private volatile LocalDateTime loadedAt;
+
+    public ItemRequestFeedCache(ItemRequestRepository itemRequestRepository,
+                                ItemRepository itemRepository,
+                                PrimaryReadTemplate transactionTemplate,
+                                @Value("${shareit.requests.feed.size:500}") int capacity,
+                                @Value("${shareit.requests.feed.ttl:PT5M}") Duration ttl) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ring = new Entry[capacity];
+        this.ttl = ttl;
+    }
+
+    public FeedPage getPage(long userId, KeysetCursor after, int skip, int limit) {
+        loadIfNeeded();
+        lock.readLock().lock();
+        try {
+            List<ItemRequestDto> requests = new ArrayList<>();
+            int skipped = 0;
+            for (int i = 0; i < size && requests.size() < limit; i++) {
+                Entry entry = get(i);
+                if (entry.requestorId == userId || (after != null && !entry.isAfter(after))) {
+                    continue;
+                }
+                if (skipped < skip) {
+                    skipped++;
+                } else {
+                    requests.add(entry.toDto());
+                }
+            }
+            return new FeedPage(requests, truncated && requests.size() < limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(ItemRequest request) {
+        Entry entry = new Entry(request.getId(), request.getRequestor().getId(), request.getDescription(),
+                request.getCreated());
+        TransactionCallbacks.afterCommit(() -> addFirst(entry));
+    }
+
+    public void putItem(Item item) {
+        if (item.getRequest() == null) {
+            return;
+        }
+        long requestId = item.getRequest().getId();
+        ItemDto itemDto = ItemMapper.toItemDto(item);
+        TransactionCallbacks.afterCommit(() -> putItem(requestId, itemDto));
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            loadedAt = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addFirst(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            if (loadedAt == null || entries.containsKey(entry.id)) {
+                return;
+            }
+            if (size > 0 && entry.isAfter(get(0))) {
+                log.debug("Запрос id = {} старше головы ленты, лента будет перечитана", entry.id);
+                clear();
+                loadedAt = null;
+                return;
+            }
+            head = Math.floorMod(head - 1, ring.length);
+            if (size == ring.length) {
+                entries.remove(ring[head].id);
+                truncated = true;
+            } else {
+                size++;
+            }
+            ring[head] = entry;
+            entries.put(entry.id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putItem(long requestId, ItemDto itemDto) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(requestId);
+            if (entry != null) {
+                entry.items.put(itemDto.getId(), itemDto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadIfNeeded() {
+        LocalDateTime loaded = loadedAt;
+        if (loaded != null && loaded.plus(ttl).isAfter(LocalDateTime.now())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loadedAt != null && loadedAt.plus(ttl).isAfter(LocalDateTime.now())) {
+                return;
+            }
+            clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                TransactionCallbacks.onRollback(this::invalidate);
+                List<ItemRequest> requests = itemRequestRepository.findRecent(PageRequest.of(0, ring.length));
+                Map<Long, List<ItemDto>> items = itemRepository.findItemDtosByRequests(requests.stream()
+                        .map(ItemRequest::getId)
+                        .collect(Collectors.toList()));
+                for (ItemRequest request : requests) {
+                    Entry entry = new Entry(request.getId(), request.getRequestor().getId(),
+                            request.getDescription(), request.getCreated());
+                    items.getOrDefault(request.getId(), List.of()).forEach(i -> entry.items.put(i.getId(), i));
+                    ring[size++] = entry;
+                    entries.put(entry.id, entry);
+                }
+                truncated = size == ring.length;
+            });
+            loadedAt = LocalDateTime.now();
+            log.info("Загружена лента из {} запросов", size);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Entry get(int index) {
+        return ring[(head + index) % ring.length];
+    }
+
+    private void clear() {
+        for (int i = 0; i < size; i++) {
+            ring[(head + i) % ring.length] = null;
+        }
+        entries.clear();
+        head = 0;
+        size = 0;
+        truncated = false;
+    }
+
+    @Getter
+    public static class FeedPage {
+        private final List<ItemRequestDto> requests;
+        private final boolean incomplete;
+
+        FeedPage(List<ItemRequestDto> requests, boolean incomplete) {
+            this.requests = requests;
+            this.incomplete = incomplete;
+        }
+    }
+
+    private static class Entry {
+        private final long id;
+        private final long requestorId;
+        private final String description;
+        private final LocalDateTime created;
+        private final Map<Long, ItemDto> items = new LinkedHashMap<>();
+
+        Entry(long id, long requestorId, String description, LocalDateTime created) {
+            this.id = id;
+            this.requestorId = requestorId;
+            this.description = description;
+            this.created = created;
+        }
+
+        boolean isAfter(KeysetCursor cursor) {
+            int compare = created.compareTo(cursor.getPosition());
+            return compare < 0 || (compare == 0 && id < cursor.getId());
+        }
+
+        boolean isAfter(Entry entry) {
+            return isAfter(new KeysetCursor(entry.created, entry.id));
+        }
+
+        ItemRequestDto toDto() {
+            return new ItemRequestDto(id, description, created, new HashSet<>(items.values()));
+        }
+    }
+}
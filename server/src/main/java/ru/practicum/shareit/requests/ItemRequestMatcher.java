@@ -0,0 +1,294 @@
+package ru.practicum.shareit.requests;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.TransactionCallbacks;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Подбирает вещи для открытых запросов, то есть запросов, на которые еще не ответили вещью.
+ * Описания запросов и доступных вещей хранятся в инвертированных индексах по термам (первые TERM_LENGTH
+ * символов слова, чтобы разные формы слова совпадали). При сохранении вещи ее термы ищутся в индексе
+ * запросов, а новый запрос ищется в индексе вещей; вещь записывается в подсказки запроса с числом
+ * общих термов в качестве веса. Термы, встречающиеся более чем в max-term-requests запросах,
+ * при подборе пропускаются. Изменения применяются после коммита транзакции.
+ */
+@Slf4j
+@Component
+public class ItemRequestMatcher {
+    public static final int TERM_LENGTH = 5;
+    private static final int MIN_TERM_LENGTH = 3;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final PrimaryReadTemplate transactionTemplate;
+    private final int maxSuggestions;
+    private final int maxTermRequests;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, OpenRequest> requests = new HashMap<>();
+    private final Map<Long, Set<Long>> itemRequests = new HashMap<>();
+    private final Map<String, Set<Long>> itemPostings = new HashMap<>();
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private volatile boolean loaded;
+
+    public ItemRequestMatcher(ItemRequestRepository itemRequestRepository,
+                              ItemRepository itemRepository,
+                              PrimaryReadTemplate transactionTemplate,
+                              @Value("${shareit.requests.matching.max-suggestions:20}") int maxSuggestions,
+                              @Value("${shareit.requests.matching.max-term-requests:1000}") int maxTermRequests) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxSuggestions = maxSuggestions;
+        this.maxTermRequests = maxTermRequests;
+    }
+
+    public List<Long> getSuggestions(long requestId) {
+        loadIfNeeded();
+        lock.readLock().lock();
+        try {
+            OpenRequest request = requests.get(requestId);
+            if (request == null) {
+                return List.of();
+            }
+            return request.suggestions.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addRequest(ItemRequest request) {
+        long id = request.getId();
+        long requestorId = request.getRequestor().getId();
+        Set<String> terms = terms(request.getDescription());
+        TransactionCallbacks.afterCommit(() -> apply(() -> putRequest(id, requestorId, terms)));
+    }
+
+    public void itemSaved(Item item) {
+        long itemId = item.getId();
+        long ownerId = item.getOwner().getId();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        Set<String> terms = terms(item.getName() + " " + item.getDescription());
+        Long answeredRequestId = item.getRequest() == null ? null : item.getRequest().getId();
+        Runnable update = () -> {
+            if (answeredRequestId != null) {
+                removeRequest(answeredRequestId);
+            }
+            matchItem(itemId, ownerId, available, terms);
+        };
+        TransactionCallbacks.afterCommit(() -> apply(update));
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            postings.clear();
+            requests.clear();
+            itemRequests.clear();
+            itemPostings.clear();
+            items.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                update.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadIfNeeded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                TransactionCallbacks.onRollback(this::invalidate);
+                itemRepository.findAllForSearch().forEach(i -> putItem(i.getId(), i.getOwnerId(),
+                        Boolean.TRUE.equals(i.getAvailable()), terms(i.getName() + " " + i.getDescription())));
+                itemRequestRepository.findOpenRequests().forEach(r ->
+                        putRequest(r.getId(), r.getRequestorId(), terms(r.getDescription())));
+            });
+            loaded = true;
+            log.info("Построен индекс открытых запросов: {} запросов, {} термов", requests.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putRequest(long id, long requestorId, Set<String> terms) {
+        if (requests.containsKey(id)) {
+            return;
+        }
+        OpenRequest request = new OpenRequest(id, requestorId, terms);
+        requests.put(id, request);
+        terms.forEach(term -> postings.computeIfAbsent(term, t -> new HashSet<>()).add(id));
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String term : terms) {
+            Set<Long> itemIds = itemPostings.get(term);
+            if (itemIds != null && postings.get(term).size() <= maxTermRequests) {
+                itemIds.forEach(itemId -> scores.merge(itemId, 1, Integer::sum));
+            }
+        }
+        scores.entrySet().stream()
+                .filter(e -> items.get(e.getKey()).ownerId != requestorId)
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxSuggestions)
+                .forEach(e -> {
+                    request.suggestions.put(e.getKey(), e.getValue());
+                    itemRequests.computeIfAbsent(e.getKey(), itemId -> new HashSet<>()).add(id);
+                });
+    }
+
+    private void putItem(long itemId, long ownerId, boolean available, Set<String> terms) {
+        IndexedItem previous = items.remove(itemId);
+        if (previous != null) {
+            for (String term : previous.terms) {
+                Set<Long> ids = itemPostings.get(term);
+                ids.remove(itemId);
+                if (ids.isEmpty()) {
+                    itemPostings.remove(term);
+                }
+            }
+        }
+        if (available) {
+            items.put(itemId, new IndexedItem(ownerId, terms));
+            terms.forEach(term -> itemPostings.computeIfAbsent(term, t -> new HashSet<>()).add(itemId));
+        }
+    }
+
+    private void removeRequest(long id) {
+        OpenRequest request = requests.remove(id);
+        if (request == null) {
+            return;
+        }
+        for (String term : request.terms) {
+            Set<Long> ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        request.suggestions.keySet().forEach(itemId -> unlink(itemId, id));
+    }
+
+    private void matchItem(long itemId, long ownerId, boolean available, Set<String> terms) {
+        putItem(itemId, ownerId, available, terms);
+        Set<Long> previous = itemRequests.remove(itemId);
+        if (previous != null) {
+            previous.forEach(requestId -> requests.get(requestId).suggestions.remove(itemId));
+        }
+        if (!available) {
+            return;
+        }
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String term : terms) {
+            Set<Long> ids = postings.get(term);
+            if (ids != null && ids.size() <= maxTermRequests) {
+                ids.forEach(id -> scores.merge(id, 1, Integer::sum));
+            }
+        }
+        Set<Long> matched = new HashSet<>();
+        scores.forEach((requestId, score) -> {
+            OpenRequest request = requests.get(requestId);
+            if (request.requestorId != ownerId && suggest(request, itemId, score)) {
+                matched.add(requestId);
+            }
+        });
+        if (!matched.isEmpty()) {
+            itemRequests.put(itemId, matched);
+        }
+    }
+
+    private boolean suggest(OpenRequest request, long itemId, int score) {
+        if (request.suggestions.size() >= maxSuggestions) {
+            Map.Entry<Long, Integer> weakest = request.suggestions.entrySet().stream()
+                    .min(Map.Entry.<Long, Integer>comparingByValue()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .orElseThrow();
+            if (weakest.getValue() >= score) {
+                return false;
+            }
+            request.suggestions.remove(weakest.getKey());
+            unlink(weakest.getKey(), request.id);
+        }
+        request.suggestions.put(itemId, score);
+        return true;
+    }
+
+    private void unlink(long itemId, long requestId) {
+        Set<Long> ids = itemRequests.get(itemId);
+        if (ids != null) {
+            ids.remove(requestId);
+            if (ids.isEmpty()) {
+                itemRequests.remove(itemId);
+            }
+        }
+    }
+
+    static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (word.length() >= MIN_TERM_LENGTH) {
+                terms.add(word.length() > TERM_LENGTH ? word.substring(0, TERM_LENGTH) : word);
+            }
+        }
+        return terms;
+    }
+
+    private static class IndexedItem {
+        private final long ownerId;
+        private final Set<String> terms;
+
+        IndexedItem(long ownerId, Set<String> terms) {
+            this.ownerId = ownerId;
+            this.terms = terms;
+        }
+    }
+
+    private static class OpenRequest {
+        private final long id;
+        private final long requestorId;
+        private final Set<String> terms;
+        private final Map<Long, Integer> suggestions = new HashMap<>();
+
+        OpenRequest(long id, long requestorId, Set<String> terms) {
+            this.id = id;
+            this.requestorId = requestorId;
+            this.terms = terms;
+        }
+    }
+}
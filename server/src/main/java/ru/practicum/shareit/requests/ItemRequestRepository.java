@@ -1,14 +1,34 @@
 package ru.practicum.shareit.requests;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
     List<ItemRequest> findAllByRequestorId(long userId);
 
-    Page<ItemRequest> findAll(Pageable pageable);
-}
\ No newline at end of file
+    @Query(value = "select r from ItemRequest r " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findRecent(Pageable pageable);
+
+    @Query(value = "select r.id as id, r.requestor.id as requestorId, r.description as description " +
+            "from ItemRequest r " +
+            "where not exists (select i.id from Item i where i.request = r)")
+    List<OpenItemRequestView> findOpenRequests();
+
+    @Query(value = "select r from ItemRequest r " +
+            "where r.requestor.id <> ?1 " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findOthersRequests(long userId, Pageable pageable);
+
+    @Query(value = "select r from ItemRequest r " +
+            "where r.requestor.id <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findOthersRequestsAfterCursor(long userId, LocalDateTime cursorCreated, long cursorId,
+                                                    Pageable pageable);
+}
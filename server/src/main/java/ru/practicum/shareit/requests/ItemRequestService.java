@@ -1,5 +1,8 @@
 package ru.practicum.shareit.requests;
 
+import ru.practicum.shareit.KeysetCursor;
+import ru.practicum.shareit.item.dto.ItemDto;
+
 import java.util.List;
 
 public interface ItemRequestService {
@@ -10,5 +13,9 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> getAllRequest(long userId, int from, int size);
 
+    List<ItemRequestDto> getAllRequest(long userId, KeysetCursor cursor, int size);
+
     ItemRequestDto getRequestById(long userId, long requestId);
+
+    List<ItemDto> getSuggestions(long userId, long requestId);
 }
\ No newline at end of file
@@ -3,18 +3,26 @@ package ru.practicum.shareit.requests;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.KeysetCursor;
+import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.NotFoundUserException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,63 +31,93 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final UserRepository userRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final ItemRepository itemRepository;
+    private final ItemRequestFeedCache itemRequestFeedCache;
+    private final ItemRequestMatcher itemRequestMatcher;
 
     public ItemRequestServiceImpl(UserRepository userRepository,
                                   ItemRequestRepository itemRequestRepository,
-                                  ItemRepository itemRepository) {
+                                  ItemRepository itemRepository,
+                                  ItemRequestFeedCache itemRequestFeedCache,
+                                  ItemRequestMatcher itemRequestMatcher) {
         this.userRepository = userRepository;
         this.itemRequestRepository = itemRequestRepository;
         this.itemRepository = itemRepository;
+        this.itemRequestFeedCache = itemRequestFeedCache;
+        this.itemRequestMatcher = itemRequestMatcher;
     }
 
     @Override
+    @Transactional
     public ItemRequest createRequest(long userId, ItemRequest request) {
         Optional<User> user = userRepository.findById(userId);
         if (user.isPresent()) {
             request.setRequestor(user.get());
-            request.setCreated(LocalDateTime.now());
+            request.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
             log.info("Добавлен новый запрос пользователем id = {}", userId);
-            return itemRequestRepository.save(request);
+            ItemRequest savedRequest = itemRequestRepository.save(request);
+            itemRequestFeedCache.add(savedRequest);
+            itemRequestMatcher.addRequest(savedRequest);
+            return savedRequest;
         } else {
             throw new NotFoundUserException(String.format("Не найден пользователь id = %s", userId));
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getRequestsByOwner(long userId) {
         if (userRepository.findById(userId).isPresent()) {
             log.info("Запрошены все запросы пользователя id = {}", userId);
-            return itemRequestRepository.findAllByRequestorId(userId).stream()
+            return withItems(itemRequestRepository.findAllByRequestorId(userId).stream()
                     .sorted(Comparator.comparing(ItemRequest::getCreated).reversed())
                     .map(ItemRequestMapper::toItemRequestDto)
-                    .peek(s -> s.setItems(itemRepository.findItemsByRequest(s.getId()).stream()
-                            .map(ItemMapper::toItemDto)
-                            .collect(Collectors.toSet())))
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toList()));
         } else {
             throw new NotFoundUserException(String.format("Не найден пользователь id = %s", userId));
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getAllRequest(long userId, int from, int size) {
         if (userRepository.findById(userId).isPresent()) {
             int page = from / size;
-            Pageable pageable = PageRequest.of(page, size, Sort.by("created").descending());
             log.info("Пользователь id = {} запросил все запросы", userId);
-            return itemRequestRepository.findAll(pageable).get()
-                    .filter(s -> s.getRequestor().getId() != userId)
-                    .map(ItemRequestMapper::toItemRequestDto)
-                    .peek(s -> s.setItems(itemRepository.findItemsByRequest(s.getId()).stream()
-                            .map(ItemMapper::toItemDto)
-                            .collect(Collectors.toSet())))
-                    .collect(Collectors.toList());
+            ItemRequestFeedCache.FeedPage cached = itemRequestFeedCache.getPage(userId, null, page * size, size);
+            if (!cached.isIncomplete()) {
+                return cached.getRequests();
+            }
+            Pageable pageable = PageRequest.of(page, size);
+            return withItems(toDtos(itemRequestRepository.findOthersRequests(userId, pageable)));
+        } else {
+            throw new NotFoundUserException(String.format("Не найден пользователь id = %s", userId));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> getAllRequest(long userId, KeysetCursor cursor, int size) {
+        if (cursor == null) {
+            return getAllRequest(userId, 0, size);
+        }
+        if (userRepository.findById(userId).isPresent()) {
+            log.info("Пользователь id = {} запросил все запросы после курсора {}", userId, cursor);
+            ItemRequestFeedCache.FeedPage cached = itemRequestFeedCache.getPage(userId, cursor, 0, size);
+            List<ItemRequestDto> requests = new ArrayList<>(cached.getRequests());
+            if (cached.isIncomplete()) {
+                KeysetCursor last = requests.isEmpty() ? cursor : new KeysetCursor(
+                        requests.get(requests.size() - 1).getCreated(), requests.get(requests.size() - 1).getId());
+                requests.addAll(withItems(toDtos(itemRequestRepository.findOthersRequestsAfterCursor(userId,
+                        last.getPosition(), last.getId(), PageRequest.of(0, size - requests.size())))));
+            }
+            return requests;
         } else {
             throw new NotFoundUserException(String.format("Не найден пользователь id = %s", userId));
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getRequestById(long userId, long requestId) {
         userRepository.findById(userId).orElseThrow(() ->
                 new NotFoundUserException(String.format("Не найден пользователь id = %s", userId)));
@@ -88,10 +126,43 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                         .orElseThrow(() -> new NotFoundRequestException(
                                 String.format("Не найден запрос id = %s", requestId)))
         );
-        itemRequestDto.setItems(itemRepository.findItemsByRequest(requestId).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toSet()));
         log.info("Пользователь id = {} запросил запросы id = {}", userId, requestId);
-        return itemRequestDto;
+        return withItems(List.of(itemRequestDto)).get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDto> getSuggestions(long userId, long requestId) {
+        userRepository.findById(userId).orElseThrow(() ->
+                new NotFoundUserException(String.format("Не найден пользователь id = %s", userId)));
+        if (!itemRequestRepository.existsById(requestId)) {
+            throw new NotFoundRequestException(String.format("Не найден запрос id = %s", requestId));
+        }
+        List<Long> itemIds = itemRequestMatcher.getSuggestions(requestId);
+        log.info("Пользователь id = {} запросил подходящие вещи для запроса id = {}", userId, requestId);
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Item> items = itemRepository.findAllByIdIn(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return itemIds.stream()
+                .filter(items::containsKey)
+                .map(id -> ItemMapper.toItemDto(items.get(id)))
+                .collect(Collectors.toList());
+    }
+
+    private List<ItemRequestDto> toDtos(List<ItemRequest> requests) {
+        return requests.stream()
+                .map(ItemRequestMapper::toItemRequestDto)
+                .collect(Collectors.toList());
+    }
+
+    private List<ItemRequestDto> withItems(List<ItemRequestDto> requests) {
+        Map<Long, List<ItemDto>> items = itemRepository.findItemDtosByRequests(requests.stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList()));
+        requests.forEach(request -> request.setItems(new HashSet<>(
+                items.getOrDefault(request.getId(), List.of()))));
+        return requests;
     }
 }
\ No newline at end of file
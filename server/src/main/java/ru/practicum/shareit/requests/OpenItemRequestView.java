@@ -0,0 +1,9 @@
+package ru.practicum.shareit.requests;
+
+public interface OpenItemRequestView {
+    Long getId();
+
+    Long getRequestorId();
+
+    String getDescription();
+}
@@ -1,14 +1,23 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.Ndjson;
 import ru.practicum.shareit.user.dto.UserDto;
 
-import java.util.Collection;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path = "/users")
+@Validated
 public class UserController {
+    public static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
     private final UserService userService;
 
     public UserController(UserService userService) {
@@ -32,8 +41,22 @@ public class UserController {
     }
 
     @GetMapping()
-    public Collection<UserDto> getAllUsers() {
-        return userService.getAllUsers().stream().map(UserMapper::toUserDto).collect(Collectors.toList());
+    public ResponseEntity<List<UserDto>> getUsers(@RequestParam(defaultValue = "0") @PositiveOrZero long afterId,
+                                                  @RequestParam(defaultValue = "100") @Positive int size) {
+        List<UserDto> users = userService.getUsers(afterId, size).stream()
+                .map(UserMapper::toUserDto)
+                .collect(Collectors.toList());
+        if (users.size() < size) {
+            return ResponseEntity.ok(users);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_AFTER_ID_HEADER, String.valueOf(users.get(users.size() - 1).getId()))
+                .body(users);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return Ndjson.<UserDto>stream(userService::exportUsers);
     }
 
     @DeleteMapping("/{userId}")
@@ -1,6 +1,24 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-}
\ No newline at end of file
+    @Query(value = "select u from User u " +
+            "where u.id > ?1 " +
+            "order by u.id")
+    List<User> findUsersAfter(long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"))
+    @Query(value = "select new ru.practicum.shareit.user.dto.UserDto(u.id, u.name, u.email) " +
+            "from User u " +
+            "order by u.id")
+    Stream<UserDto> streamUsers();
+}
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.user;
 
+import ru.practicum.shareit.user.dto.UserDto;
+
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     User createUser(User user);
@@ -9,7 +12,9 @@ public interface UserService {
 
     User getUser(long userId);
 
-    List<User> getAllUsers();
+    List<User> getUsers(long afterId, int size);
+
+    void exportUsers(Consumer<UserDto> consumer);
 
     void deleteUser(long userId);
 }
\ No newline at end of file
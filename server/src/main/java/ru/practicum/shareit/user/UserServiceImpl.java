@@ -1,9 +1,14 @@
 package ru.practicum.shareit.user;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -15,12 +20,14 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public User createUser(User user) {
         log.info("Добавлен пользователь {}", user.getName());
         return userRepository.save(user);
     }
 
     @Override
+    @Transactional
     public User updateUser(long userId, User user) {
         User updateUser = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundUserException(String.format("Пользователь id = %s не найден", userId)));
@@ -30,6 +37,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User getUser(long userId) {
         log.info("Запрошена информация о пользователе id = {}", userId);
         return userRepository.findById(userId)
@@ -37,12 +45,23 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<User> getAllUsers() {
-        log.info("Запрошены все пользователи");
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<User> getUsers(long afterId, int size) {
+        log.info("Запрошены пользователи после id = {}, количество {}", afterId, size);
+        return userRepository.findUsersAfter(afterId, PageRequest.of(0, size));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserDto> consumer) {
+        log.info("Выгрузка всех пользователей");
+        try (Stream<UserDto> users = userRepository.streamUsers()) {
+            users.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional
     public void deleteUser(long userId) {
         log.info("Удален пользователь id = {}", userId);
         userRepository.deleteById(userId);
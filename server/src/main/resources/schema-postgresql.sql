@@ -0,0 +1,69 @@
+create extension if not exists pg_trgm;
+
+create extension if not exists btree_gist;
+
+do 'declare
+    r record;
+begin
+    if not exists (select 1 from pg_constraint where conname = ''booking_item_period_excl'') then
+        for r in select b.id, b.item_id, b.status, b.start_date, b.end_date
+                 from booking b
+                 where b.status in (''WAITING'', ''APPROVED'')
+                   and b.start_date < b.end_date
+                   and exists(select 1 from booking o
+                              where o.item_id = b.item_id
+                                and o.id <> b.id
+                                and o.status in (''WAITING'', ''APPROVED'')
+                                and o.start_date < b.end_date
+                                and o.end_date > b.start_date)
+                 order by b.status = ''APPROVED'' desc, b.id
+        loop
+            if exists(select 1 from booking o
+                      where o.item_id = r.item_id
+                        and o.id <> r.id
+                        and o.status in (''WAITING'', ''APPROVED'')
+                        and o.start_date < o.end_date
+                        and o.start_date < r.end_date
+                        and o.end_date > r.start_date
+                        and ((o.status = ''APPROVED'' and r.status = ''WAITING'')
+                            or (o.status = r.status and o.id < r.id))) then
+                update booking
+                set status  = case when r.status = ''WAITING'' then ''REJECTED'' else ''CANCELED'' end,
+                    version = version + 1
+                where id = r.id;
+                raise warning ''Бронирование id = % вещи id = % пересекается с более ранним и снято со статуса %'',
+                    r.id, r.item_id, r.status;
+            end if;
+        end loop;
+        alter table booking add constraint booking_item_period_excl
+            exclude using gist (item_id with =, tsrange(start_date, end_date) with &&)
+            where (status in (''WAITING'', ''APPROVED'') and start_date < end_date);
+    end if;
+end';
+
+alter table items
+    add column if not exists search_vector tsvector
+        generated always as (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, ''))) stored;
+
+create index if not exists items_search_vector_idx on items using gin (search_vector);
+
+create index if not exists booking_waiting_id_idx on booking (id, start_date) where status = 'WAITING';
+
+create index if not exists items_name_trgm_idx on items using gin (lower(name) gin_trgm_ops);
+
+create index if not exists items_description_trgm_idx on items using gin (lower(description) gin_trgm_ops);
+
+select setval('users_seq', (select max(id) + 1 from users), false)
+where (select case when is_called then last_value + 50 else last_value end from users_seq) <= (select coalesce(max(id), 0) from users);
+
+select setval('requests_seq', (select max(id) + 1 from requests), false)
+where (select case when is_called then last_value + 50 else last_value end from requests_seq) <= (select coalesce(max(id), 0) from requests);
+
+select setval('items_seq', (select max(id) + 1 from items), false)
+where (select case when is_called then last_value + 50 else last_value end from items_seq) <= (select coalesce(max(id), 0) from items);
+
+select setval('booking_seq', (select max(id) + 1 from booking), false)
+where (select case when is_called then last_value + 50 else last_value end from booking_seq) <= (select coalesce(max(id), 0) from booking);
+
+select setval('comments_seq', (select max(id) + 1 from comments), false)
+where (select case when is_called then last_value + 50 else last_value end from comments_seq) <= (select coalesce(max(id), 0) from comments);
@@ -1,3 +1,13 @@
+create sequence if not exists users_seq start with 1 increment by 50;
+
+create sequence if not exists requests_seq start with 1 increment by 50;
+
+create sequence if not exists items_seq start with 1 increment by 50;
+
+create sequence if not exists booking_seq start with 1 increment by 50;
+
+create sequence if not exists comments_seq start with 1 increment by 50;
+
 CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -48,9 +58,20 @@ create table if not exists booking
         constraint booking_user_id
             references users (id)
             on delete cascade,
-    status     varchar(10) not null
+    status     varchar(10) not null,
+    version    bigint      default 0 not null
 );
 
+alter table booking add column if not exists version bigint default 0 not null;
+
+create index if not exists booking_item_id_start_date_idx on booking (item_id, start_date);
+
+create index if not exists booking_booker_id_start_date_idx on booking (booker_id, start_date, id);
+
+create index if not exists items_owner_id_idx on items (owner_id);
+
+create index if not exists requests_created_id_idx on requests (created desc, id desc);
+
 create table if not exists comments
 (
     id        bigserial
@@ -66,4 +87,39 @@ create table if not exists comments
             references users
             on update cascade on delete cascade,
     created   timestamp without time zone not null
-);
\ No newline at end of file
+);
+
+create table if not exists item_booking_summary
+(
+    item_id         bigint not null
+        constraint item_booking_summary_pk
+            primary key
+        constraint item_booking_summary_item_id
+            references items
+            on delete cascade,
+    last_booking_id bigint,
+    last_booker_id  bigint,
+    last_end        timestamp without time zone,
+    next_booking_id bigint,
+    next_booker_id  bigint,
+    next_end        timestamp without time zone,
+    valid_until     timestamp without time zone
+);
+
+create index if not exists item_booking_summary_valid_until_idx on item_booking_summary (valid_until);
+
+insert into item_booking_summary (item_id, valid_until)
+select i.id, timestamp '1970-01-01 00:00:00'
+from items i
+where not exists(select 1 from item_booking_summary s where s.item_id = i.id);
+
+create table if not exists idempotency_keys
+(
+    id       varchar(200) not null
+        constraint idempotency_keys_pk
+            primary key,
+    response text         not null,
+    created  timestamp without time zone not null
+);
+
+create index if not exists idempotency_keys_created_idx on idempotency_keys (created);
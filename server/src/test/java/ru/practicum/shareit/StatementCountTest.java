@@ -0,0 +1,233 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.comment.CommentDtoFromRequest;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.requests.ItemRequest;
+import ru.practicum.shareit.requests.ItemRequestService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL-запросов, которое выполняет каждый endpoint. Данные создаются один раз для всего класса,
+ * тесты не зависят от порядка: счетчик меряет запросы, а не строки, а изменяющие тесты бронируют
+ * свои периоды и не пересекаются с остальными.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {"db.name=statements", "spring.jpa.properties.hibernate.generate_statistics=true"},
+        classes = ShareItApp.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StatementCountTest {
+    private static final int ITEMS = 5;
+    private static final int REQUESTS = 3;
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRequestService itemRequestService;
+    @Autowired
+    private BookingService bookingService;
+    private final List<Long> itemIds = new ArrayList<>();
+    private long ownerId;
+    private long bookerId;
+    private long requestId;
+    private long bookingId;
+
+    @BeforeAll
+    public void prepare() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> createData());
+        perform(get("/items/search").param("text", "item").param("from", "0").param("size", "10"), ownerId);
+        perform(get("/requests/all").param("from", "0").param("size", "10"), ownerId);
+    }
+
+    @Test
+    public void getUserById() throws Exception {
+        assertEquals(1, perform(get("/users/{userId}", ownerId), ownerId));
+    }
+
+    @Test
+    public void getUsersPage() throws Exception {
+        assertEquals(1, perform(get("/users").param("afterId", String.valueOf(ownerId)).param("size", "10"),
+                ownerId));
+    }
+
+    @Test
+    public void getItemWithBookingsAndComments() throws Exception {
+        assertEquals(3, perform(get("/items/{itemId}", itemIds.get(0)), ownerId));
+    }
+
+    @Test
+    public void getOwnerItems() throws Exception {
+        assertEquals(3, perform(get("/items").param("from", "0").param("size", "10"), ownerId));
+    }
+
+    @Test
+    public void searchItems() throws Exception {
+        assertEquals(1, perform(get("/items/search").param("text", "item").param("from", "0").param("size", "10"),
+                ownerId));
+    }
+
+    @Test
+    public void replayCreateItemByIdempotencyKey() throws Exception {
+        MockHttpServletRequestBuilder request = post("/items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new ItemDto(0, "Replayed", "Replayed item", true)))
+                .header(IdempotencyStore.HEADER, "replayed-item");
+        perform(request, ownerId);
+        assertEquals(0, perform(request, ownerId));
+    }
+
+    @Test
+    public void getRequestWithItems() throws Exception {
+        assertEquals(3, perform(get("/requests/{requestId}", requestId), bookerId));
+    }
+
+    @Test
+    public void getOwnRequests() throws Exception {
+        assertEquals(3, perform(get("/requests"), bookerId));
+    }
+
+    @Test
+    public void getAllRequestsFromFeedCache() throws Exception {
+        assertEquals(1, perform(get("/requests/all").param("from", "0").param("size", "10"), ownerId));
+    }
+
+    @Test
+    public void getBookingById() throws Exception {
+        assertEquals(1, perform(get("/bookings/{bookingId}", bookingId), bookerId));
+    }
+
+    @Test
+    public void getBookerBookings() throws Exception {
+        assertEquals(2, perform(get("/bookings").param("state", "ALL"), bookerId));
+    }
+
+    @Test
+    public void getOwnerBookings() throws Exception {
+        assertEquals(2, perform(get("/bookings/owner").param("state", "ALL"), ownerId));
+    }
+
+    @Test
+    public void getBookingStats() throws Exception {
+        assertEquals(2, perform(get("/bookings/stats"), bookerId));
+        assertEquals(2, perform(get("/bookings/owner/stats"), ownerId));
+    }
+
+    @Test
+    public void createBookingsBatch() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusYears(1);
+        List<BookingDto> bookings = new ArrayList<>();
+        for (long itemId : itemIds) {
+            bookings.add(new BookingDto(itemId, start, start.plusDays(1)));
+        }
+        assertEquals(5, perform(post("/bookings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new BookingBatchDto(bookings))), bookerId));
+    }
+
+    @Test
+    public void changeStatusesBatch() throws Exception {
+        List<Long> bookingIds = createWaitingBookings(itemIds.subList(0, 3), LocalDateTime.now().plusMonths(1));
+        assertEquals(3, perform(patch("/bookings/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new BookingStatusBatchDto(bookingIds, true))), ownerId));
+    }
+
+    @Test
+    public void changeStatus() throws Exception {
+        List<Long> bookingIds = createWaitingBookings(itemIds.subList(3, 4), LocalDateTime.now().plusMonths(2));
+        assertEquals(2, perform(patch("/bookings/{bookingId}", bookingIds.get(0)).param("approved", "false"),
+                ownerId));
+    }
+
+    private List<Long> createWaitingBookings(List<Long> itemIds, LocalDateTime start) {
+        List<Long> bookingIds = new ArrayList<>();
+        for (long itemId : itemIds) {
+            bookingIds.add(bookingService.createBooking(bookerId,
+                    new BookingDto(itemId, start, start.plusDays(1))).getId());
+        }
+        return bookingIds;
+    }
+
+    private long perform(MockHttpServletRequestBuilder request, long userId) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mvc.perform(request.header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createData() {
+        User owner = userService.createUser(new User(0, "Owner", "owner@ya.ru"));
+        User booker = userService.createUser(new User(0, "Booker", "booker@ya.ru"));
+        ownerId = owner.getId();
+        bookerId = booker.getId();
+        ItemRequest request = new ItemRequest();
+        request.setDescription("Request");
+        request = itemRequestService.createRequest(booker.getId(), request);
+        requestId = request.getId();
+        for (int i = 1; i < REQUESTS; i++) {
+            ItemRequest other = new ItemRequest();
+            other.setDescription("Request " + i);
+            itemRequestService.createRequest(booker.getId(), other);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            ItemDto itemDto = new ItemDto(0, "Item" + i, "Item for test " + i, true);
+            itemDto.setRequestId(request.getId());
+            Item item = itemService.createItem(itemDto, owner.getId());
+            itemIds.add(item.getId());
+            Booking past = bookingService.createBooking(booker.getId(),
+                    new BookingDto(item.getId(), now.minusDays(3), now.minusDays(2)));
+            bookingService.changeStatus(past.getId(), true, owner.getId());
+            if (i == 0) {
+                bookingId = past.getId();
+            }
+            bookingService.createBooking(booker.getId(),
+                    new BookingDto(item.getId(), now.plusDays(2), now.plusDays(3)));
+            CommentDtoFromRequest comment = new CommentDtoFromRequest();
+            comment.setText("Comment " + i);
+            itemService.createComment(booker.getId(), item.getId(), comment);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@SpringBootTest(
+        properties = "db.name=contention",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        classes = ShareItApp.class)
+public class BookingContentionTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 400;
+    private static final int ITEMS = 64;
+    private static final AtomicInteger RUN = new AtomicInteger();
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    private long bookerId;
+    private final List<Long> itemIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        int run = RUN.incrementAndGet();
+        User owner = userService.createUser(new User(0, "Owner", "owner" + run + "@contention.ru"));
+        bookerId = userService.createUser(new User(0, "Booker", "booker" + run + "@contention.ru")).getId();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = itemService.createItem(new ItemDto(0, "Item" + i, "Item for contention " + i, true),
+                    owner.getId());
+            itemIds.add(item.getId());
+        }
+    }
+
+    @Test
+    public void test1_onlyOneOfConcurrentOverlappingBookingsIsCreated() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto bookingDto = new BookingDto(itemIds.get(0), start, start.plusDays(1));
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            tasks.add(() -> {
+                try {
+                    bookingService.createBooking(bookerId, bookingDto);
+                    return true;
+                } catch (NotAvailableBookingException e) {
+                    return false;
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            int created = 0;
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                created += result.get() ? 1 : 0;
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void test2_compareHotAndUniformItems() throws Exception {
+        double hot = throughput(LocalDateTime.now().plusYears(1), op -> itemIds.get(0));
+        double uniform = throughput(LocalDateTime.now().plusYears(2), op -> itemIds.get(op % ITEMS));
+        log.info("Бронирований в секунду: одна вещь {}, {} вещей {}",
+                String.format("%.0f", hot), ITEMS, String.format("%.0f", uniform));
+    }
+
+    private double throughput(LocalDateTime start, IntToLongFunction itemId) throws Exception {
+        List<Callable<Booking>> tasks = new ArrayList<>();
+        for (int op = 0; op < OPERATIONS; op++) {
+            LocalDateTime bookingStart = start.plusHours(op * 2L);
+            BookingDto bookingDto = new BookingDto(itemId.applyAsLong(op), bookingStart, bookingStart.plusHours(1));
+            tasks.add(() -> bookingService.createBooking(bookerId, bookingDto));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long startedAt = System.nanoTime();
+            List<Future<Booking>> results = executor.invokeAll(tasks);
+            long elapsed = System.nanoTime() - startedAt;
+            for (Future<Booking> result : results) {
+                result.get();
+            }
+            return OPERATIONS * 1_000_000_000.0 / elapsed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
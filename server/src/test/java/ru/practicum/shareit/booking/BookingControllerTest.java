@@ -7,20 +7,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.ErrorHandler;
+import ru.practicum.shareit.KeysetCursor;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.idempotency.MemoryIdempotencyStore;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.NotFoundUserException;
 import ru.practicum.shareit.user.User;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +42,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class BookingControllerTest {
     @Mock
     private BookingService bookingService;
+    @Spy
+    private IdempotencyStore idempotencyStore = new MemoryIdempotencyStore(Duration.ofHours(1), 100);
     @InjectMocks
     private BookingController controller;
     private MockMvc mvc;
@@ -47,11 +62,14 @@ public class BookingControllerTest {
     );
     private final Booking booking1 = BookingMapper.toBooking(bookingDto);
     private final Booking booking2 = BookingMapper.toBooking(bookingDto2);
+    private BookingDtoWithItem bookingInfo1;
+    private BookingDtoWithItem bookingInfo2;
 
     @BeforeEach
     public void setUp() {
         mvc = MockMvcBuilders
                 .standaloneSetup(controller)
+                .setControllerAdvice(new ErrorHandler())
                 .build();
         mapper.findAndRegisterModules();
         booking1.setItem(item);
@@ -62,6 +80,8 @@ public class BookingControllerTest {
         booking2.setBooker(user);
         booking2.setStatus(Status.APPROVED);
         booking2.setId(1L);
+        bookingInfo1 = BookingMapper.toBookingDtoWithItem(booking1);
+        bookingInfo2 = BookingMapper.toBookingDtoWithItem(booking2);
     }
 
     @Test
@@ -76,7 +96,7 @@ public class BookingControllerTest {
                             .accept(MediaType.APPLICATION_JSON)
                             .header("X-Sharer-User-Id", 1))
                     .andExpect(status().isOk())
-                    .andExpect(content().json(mapper.writeValueAsString(booking1)));
+                    .andExpect(content().json(mapper.writeValueAsString(BookingMapper.toBookingDtoWithItem(booking1))));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -93,7 +113,7 @@ public class BookingControllerTest {
                             .accept(MediaType.APPLICATION_JSON)
                             .header("X-Sharer-User-Id", 1))
                     .andExpect(status().isOk())
-                    .andExpect(content().json(mapper.writeValueAsString(booking1)));
+                    .andExpect(content().json(mapper.writeValueAsString(BookingMapper.toBookingDtoWithItem(booking1))));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -112,7 +132,7 @@ public class BookingControllerTest {
                             .header("X-Sharer-User-Id", 1)
                             .param("approved", "true"))
                     .andExpect(status().isOk())
-                    .andExpect(content().json(mapper.writeValueAsString(booking1)));
+                    .andExpect(content().json(mapper.writeValueAsString(BookingMapper.toBookingDtoWithItem(booking1))));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -121,7 +141,7 @@ public class BookingControllerTest {
     @Test
     public void test4_tryGetAllBooking() {
         when(bookingService.getAllBooking(Mockito.any(BookingDtoState.class), Mockito.anyInt(), Mockito.anyInt()))
-                .thenReturn(List.of(booking1, booking2));
+                .thenReturn(List.of(bookingInfo1, bookingInfo2));
         try {
             mvc.perform(get("/bookings")
                             .characterEncoding(StandardCharsets.UTF_8)
@@ -133,7 +153,7 @@ public class BookingControllerTest {
                             .param("size", "5"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.*", is(hasSize(2))))
-                    .andExpect(content().json(mapper.writeValueAsString(List.of(booking1, booking2))));
+                    .andExpect(content().json(mapper.writeValueAsString(List.of(bookingInfo1, bookingInfo2))));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -142,7 +162,7 @@ public class BookingControllerTest {
     @Test
     public void test5_tryGetAllBookingByOwner() {
         when(bookingService.getAllBookingByOwner(Mockito.any(BookingDtoState.class), Mockito.anyInt(), Mockito.anyInt()))
-                .thenReturn(List.of(booking1, booking2));
+                .thenReturn(List.of(bookingInfo1, bookingInfo2));
         try {
             mvc.perform(get("/bookings/owner")
                             .characterEncoding(StandardCharsets.UTF_8)
@@ -154,9 +174,212 @@ public class BookingControllerTest {
                             .param("size", "5"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.*", is(hasSize(2))))
-                    .andExpect(content().json(mapper.writeValueAsString(List.of(booking1, booking2))));
+                    .andExpect(content().json(mapper.writeValueAsString(List.of(bookingInfo1, bookingInfo2))));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test6_tryGetAllBookingByCursor() {
+        KeysetCursor cursor = new KeysetCursor(booking1.getStart(), booking1.getId());
+        when(bookingService.getAllBooking(Mockito.any(BookingDtoState.class), Mockito.eq(cursor), Mockito.eq(2)))
+                .thenReturn(List.of(bookingInfo2, bookingInfo1));
+        try {
+            mvc.perform(get("/bookings")
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1)
+                            .param("cursor", cursor.encode())
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.*", is(hasSize(2))))
+                    .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER,
+                            new KeysetCursor(booking1.getStart(), booking1.getId()).encode()));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test7_tryGetFirstPageByOwnerWithEmptyCursor() {
+        when(bookingService.getAllBookingByOwner(Mockito.any(BookingDtoState.class), Mockito.isNull(), Mockito.eq(5)))
+                .thenReturn(List.of(bookingInfo1));
+        try {
+            mvc.perform(get("/bookings/owner")
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1)
+                            .param("cursor", "")
+                            .param("size", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.*", is(hasSize(1))))
+                    .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER, nullValue()));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test8_tryGetAllBookingWithInvalidCursor() {
+        try {
+            mvc.perform(get("/bookings")
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1)
+                            .param("cursor", "not-a-cursor"))
+                    .andExpect(status().isBadRequest());
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test9_tryCreateBookings() {
+        BookingBatchResult created = new BookingBatchResult(1L, BookingBatchStatus.CREATED, bookingInfo1, null);
+        BookingBatchResult ownItem = new BookingBatchResult(1L, BookingBatchStatus.OWN_ITEM, null,
+                "Невозможно бронирование собственное вещи пользователем id = 1");
+        when(bookingService.createBookings(1L, List.of(bookingDto, bookingDto2)))
+                .thenReturn(List.of(created, ownItem));
+        try {
+            mvc.perform(post("/bookings/batch")
+                            .content(mapper.writeValueAsString(new BookingBatchDto(List.of(bookingDto, bookingDto2))))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(mapper.writeValueAsString(List.of(created, ownItem))));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test10_tryChangeStatuses() {
+        List<BookingStatusResult> results = List.of(
+                new BookingStatusResult(1L, BookingStatusOutcome.UPDATED, null),
+                new BookingStatusResult(2L, BookingStatusOutcome.NOT_FOUND, "Бронирование id = 2 не найдено"));
+        when(bookingService.changeStatuses(List.of(1L, 2L), true, 1L))
+                .thenReturn(results);
+        try {
+            mvc.perform(patch("/bookings/status")
+                            .content(mapper.writeValueAsString(new BookingStatusBatchDto(List.of(1L, 2L), true)))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(mapper.writeValueAsString(results)));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test11_tryGetBookingStats() {
+        BookingStats stats = new BookingStats(3, 1, 1, 1, 1, 1, 1, 0);
+        when(bookingService.getBookingStats(1L)).thenReturn(stats);
+        when(bookingService.getBookingStatsByOwner(1L)).thenReturn(new BookingStats());
+        try {
+            mvc.perform(get("/bookings/stats")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(mapper.writeValueAsString(stats)));
+            mvc.perform(get("/bookings/owner/stats")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.all", is(0)));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test12_tryExportBookings() {
+        Mockito.doAnswer(invocation -> {
+            Consumer<BookingDtoWithItem> consumer = invocation.getArgument(1);
+            consumer.accept(bookingInfo1);
+            consumer.accept(bookingInfo2);
+            return null;
+        }).when(bookingService).exportBookings(Mockito.eq(1L), Mockito.any());
+        try {
+            MvcResult result = mvc.perform(get("/bookings/export")
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+            String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+            assertThat(lines.length, is(2));
+            assertThat(mapper.readValue(lines[0], BookingDtoWithItem.class).getStatus(), is(bookingInfo1.getStatus()));
+            assertThat(mapper.readValue(lines[1], BookingDtoWithItem.class).getStatus(), is(bookingInfo2.getStatus()));
+            assertThat(mapper.readValue(lines[1], BookingDtoWithItem.class).getStart(), is(bookingInfo2.getStart()));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test13_tryExportBookingsByOwnerWhenUserIsNotFound() {
+        Mockito.doThrow(new NotFoundUserException("Пользователь id = 1 не найден"))
+                .when(bookingService).checkUser(1L);
+        try {
+            mvc.perform(get("/bookings/owner/export")
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isNotFound());
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verify(bookingService, Mockito.never()).exportBookingsByOwner(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    public void test14_createBookingWithIdempotencyKey() {
+        when(bookingService.createBooking(Mockito.anyLong(), Mockito.any(BookingDto.class)))
+                .thenReturn(booking1);
+        try {
+            for (int i = 0; i < 2; i++) {
+                mvc.perform(post("/bookings")
+                                .content(mapper.writeValueAsString(bookingDto))
+                                .characterEncoding(StandardCharsets.UTF_8)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .header("X-Sharer-User-Id", 1)
+                                .header(IdempotencyStore.HEADER, "booking-1"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().json(mapper.writeValueAsString(bookingInfo1)));
+            }
+            mvc.perform(post("/bookings")
+                            .content(mapper.writeValueAsString(bookingDto))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1)
+                            .header(IdempotencyStore.HEADER, "x".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1)))
+                    .andExpect(status().isBadRequest());
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verify(bookingService, Mockito.times(1)).createBooking(Mockito.anyLong(), Mockito.any(BookingDto.class));
+    }
+
+    @Test
+    public void test15_tryChangeStatusesWithoutApproved() {
+        try {
+            mvc.perform(patch("/bookings/status")
+                            .content("{\"bookingIds\":[1,2]}")
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isBadRequest());
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verifyNoInteractions(bookingService);
+    }
+}
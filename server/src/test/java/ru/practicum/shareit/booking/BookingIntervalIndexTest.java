@@ -0,0 +1,125 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    private final LocalDateTime end = start.plusDays(1);
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookingIntervalIndex(bookingRepository, primaryRead(), 100, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void test1_applyUpdateAfterCommit() {
+        Mockito
+                .when(bookingRepository.findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of());
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        TransactionSynchronizationManager.initSynchronization();
+        index.update(1L, 10L, Status.WAITING, start, end);
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        Mockito.verify(bookingRepository).existsOverlapping(1L, start, end, 0, BookingIntervalIndex.ACTIVE_STATUSES);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        Mockito
+                .when(bookingRepository.existsOverlapping(1L, start, end, 0, BookingIntervalIndex.ACTIVE_STATUSES))
+                .thenReturn(true);
+        Assertions.assertTrue(index.hasOverlap(1L, start, end, 0));
+        Mockito.verify(bookingRepository, Mockito.times(1)).findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void test2_ignoreRolledBackUpdate() {
+        Mockito
+                .when(bookingRepository.findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of());
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        TransactionSynchronizationManager.initSynchronization();
+        index.update(1L, 10L, Status.WAITING, start, end);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+    }
+
+    @Test
+    public void test3_doNotCacheTreeLoadedDuringCommit() {
+        Mockito
+                .when(bookingRepository.findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    index.update(2L, 20L, Status.WAITING, start, end);
+                    return List.of();
+                })
+                .thenReturn(List.of());
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        Mockito.verify(bookingRepository, Mockito.times(2)).findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void test4_confirmOverlapFromTreeInDatabase() {
+        BookingPeriod period = Mockito.mock(BookingPeriod.class);
+        Mockito.when(period.getId()).thenReturn(10L);
+        Mockito.when(period.getStart()).thenReturn(start);
+        Mockito.when(period.getEnd()).thenReturn(end);
+        Mockito
+                .when(bookingRepository.findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of(period));
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        Assertions.assertFalse(index.hasOverlap(1L, end, end.plusDays(1), 0));
+        Mockito.verify(bookingRepository, Mockito.times(1))
+                .existsOverlapping(1L, start, end, 0, BookingIntervalIndex.ACTIVE_STATUSES);
+    }
+
+    @Test
+    public void test5_reloadExpiredTree() {
+        index = new BookingIntervalIndex(bookingRepository, primaryRead(), 100, Duration.ZERO);
+        Mockito
+                .when(bookingRepository.findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of());
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        Assertions.assertFalse(index.hasOverlap(1L, start, end, 0));
+        Mockito.verify(bookingRepository, Mockito.times(2)).findActivePeriods(Mockito.eq(1L), Mockito.any(), Mockito.any());
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+
+    private PrimaryReadTemplate primaryRead() {
+        return new PrimaryReadTemplate(transactionManager, false);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class BookingIntervalTreeTest {
+    private final LocalDateTime now = LocalDateTime.now();
+    private final BookingIntervalTree tree = new BookingIntervalTree(now);
+
+    @Test
+    public void test1_findOverlap() {
+        tree.put(1L, now.plusDays(1), now.plusDays(3));
+        tree.put(2L, now.plusDays(5), now.plusDays(6));
+        Assertions.assertTrue(tree.hasOverlap(now.plusDays(2), now.plusDays(4), 0));
+        Assertions.assertTrue(tree.hasOverlap(now, now.plusDays(10), 0));
+        Assertions.assertFalse(tree.hasOverlap(now.plusDays(3), now.plusDays(5), 0));
+        Assertions.assertFalse(tree.hasOverlap(now, now.plusDays(1), 0));
+        Assertions.assertFalse(tree.hasOverlap(now.plusDays(2), now.plusDays(4), 1L));
+    }
+
+    @Test
+    public void test2_removeAndReplace() {
+        tree.put(1L, now.plusDays(1), now.plusDays(3));
+        tree.remove(1L);
+        Assertions.assertFalse(tree.hasOverlap(now, now.plusDays(10), 0));
+        tree.put(1L, now.plusDays(1), now.plusDays(3));
+        tree.put(1L, now.plusDays(7), now.plusDays(8));
+        Assertions.assertEquals(1, tree.size());
+        Assertions.assertFalse(tree.hasOverlap(now, now.plusDays(5), 0));
+        Assertions.assertTrue(tree.hasOverlap(now.plusDays(6), now.plusDays(10), 0));
+    }
+
+    @Test
+    public void test3_findOverlappingIsSortedByStart() {
+        tree.put(3L, now.plusDays(5), now.plusDays(6));
+        tree.put(1L, now.plusDays(1), now.plusDays(2));
+        tree.put(2L, now.plusDays(3), now.plusDays(4));
+        List<Long> ids = tree.findOverlapping(now.plusDays(1), now.plusDays(6)).stream()
+                .map(BookingPeriod::getId)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of(1L, 2L, 3L), ids);
+    }
+
+    @Test
+    public void test4_matchesBruteForceOnRandomIntervals() {
+        Random random = new Random(42);
+        long[][] intervals = new long[500][];
+        for (int i = 0; i < intervals.length; i++) {
+            long start = random.nextInt(10_000);
+            intervals[i] = new long[]{start, start + 1 + random.nextInt(50)};
+            tree.put(i, now.plusMinutes(intervals[i][0]), now.plusMinutes(intervals[i][1]));
+        }
+        for (int i = 0; i < intervals.length; i += 3) {
+            tree.remove(i);
+            intervals[i] = null;
+        }
+        for (int q = 0; q < 2_000; q++) {
+            long start = random.nextInt(10_000);
+            long end = start + 1 + random.nextInt(50);
+            boolean expected = false;
+            for (long[] interval : intervals) {
+                if (interval != null && interval[0] < end && start < interval[1]) {
+                    expected = true;
+                    break;
+                }
+            }
+            Assertions.assertEquals(expected, tree.hasOverlap(now.plusMinutes(start), now.plusMinutes(end), -1));
+        }
+    }
+}
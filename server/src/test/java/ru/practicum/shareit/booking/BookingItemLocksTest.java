@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingItemLocksTest {
+    @Mock
+    private EntityManager entityManager;
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void test1_holdLockUntilTransactionCompletes() throws Exception {
+        BookingItemLocks locks = new BookingItemLocks(entityManager, 16, false);
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lock(List.of(1L, 2L, 1L));
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> lockInTransaction(locks, 1L));
+        Thread.sleep(200);
+        Assertions.assertFalse(waiting.isDone());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        Assertions.assertEquals(1, synchronizations.size());
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        Assertions.assertTrue(waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test2_spreadItemsOverStripes() {
+        BookingItemLocks locks = new BookingItemLocks(entityManager, 64, false);
+        Set<Integer> stripes = LongStream.rangeClosed(1, 64)
+                .mapToObj(locks::stripe)
+                .collect(Collectors.toSet());
+        Assertions.assertTrue(stripes.size() > 32);
+    }
+
+    @Test
+    public void test3_tryLockOutsideTransaction() {
+        BookingItemLocks locks = new BookingItemLocks(entityManager, 16, false);
+        Assertions.assertThrows(IllegalStateException.class, () -> locks.lock(1L));
+    }
+
+    private boolean lockInTransaction(BookingItemLocks locks, long itemId) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locks.lock(itemId);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            return true;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -79,31 +79,37 @@ public class BookingRepositoryTest {
     @Test
     public void test2_tryFindByBookerAndEndIsBeforeWithPage() {
         Pageable pageable = PageRequest.of(0, 5);
-        List<Booking> bookings = repository.findByBooker_IdAndEndIsBefore(
+        List<BookingDtoWithItem> bookings = repository.findByBooker_IdAndEndIsBefore(
                 user2.getId(),
                 LocalDateTime.now().plusDays(5),
-                pageable).getContent();
+                pageable);
         Assertions.assertEquals(1, bookings.size());
-        Assertions.assertEquals(booking1, bookings.get(0));
+        Assertions.assertEquals(booking1.getId(), bookings.get(0).getId());
+        Assertions.assertEquals(booking1.getItem().getName(), bookings.get(0).getItem().getName());
+        Assertions.assertEquals(booking1.getBooker().getId(), bookings.get(0).getBooker().getId());
     }
 
     @Test
     public void test3_tryFindByBookerAndStartIsAfter() {
         Pageable pageable = PageRequest.of(0, 5);
-        List<Booking> bookings = repository.findByBooker_IdAndStartIsAfter(
+        List<BookingDtoWithItem> bookings = repository.findByBooker_IdAndStartIsAfter(
                 user1.getId(),
                 LocalDateTime.now(),
-                pageable).getContent();
+                pageable);
         Assertions.assertEquals(1, bookings.size());
-        Assertions.assertEquals(booking2, bookings.get(0));
+        Assertions.assertEquals(booking2.getId(), bookings.get(0).getId());
+        Assertions.assertEquals(booking2.getItem().getName(), bookings.get(0).getItem().getName());
+        Assertions.assertEquals(booking2.getBooker().getId(), bookings.get(0).getBooker().getId());
     }
 
     @Test
     public void test4_tryFindByBooker() {
         Pageable pageable = PageRequest.of(0, 5);
-        List<Booking> bookings = repository.findByBooker_Id(user1.getId(), pageable).getContent();
+        List<BookingDtoWithItem> bookings = repository.findByBooker_Id(user1.getId(), pageable);
         Assertions.assertEquals(1, bookings.size());
-        Assertions.assertEquals(booking2, bookings.get(0));
+        Assertions.assertEquals(booking2.getId(), bookings.get(0).getId());
+        Assertions.assertEquals(booking2.getItem().getName(), bookings.get(0).getItem().getName());
+        Assertions.assertEquals(booking2.getBooker().getId(), bookings.get(0).getBooker().getId());
     }
 
     @Test
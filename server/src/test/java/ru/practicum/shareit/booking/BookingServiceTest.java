@@ -1,26 +1,35 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.KeysetCursor;
 import ru.practicum.shareit.ShareItApp;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.NotFoundUserException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
 @SpringBootTest(
@@ -33,6 +42,11 @@ public class BookingServiceTest {
     private final ItemService itemService;
     private final UserService userService;
     private final BookingService bookingService;
+    private final ItemBookingSummaryStore itemBookingSummaryStore;
+    private final ItemBookingSummaryRepository itemBookingSummaryRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final PlatformTransactionManager transactionManager;
     private final User user1 = new User();
     private final User user2 = new User();
     private Item item1 = new Item();
@@ -62,7 +76,8 @@ public class BookingServiceTest {
     @Test
     public void test1_createBooking() {
         Booking booking = bookingService.createBooking(user1.getId(), bookingDto);
-        assertThat(booking.getId(), equalTo(1L));
+        assertThat(booking.getId(), greaterThan(0L));
+        assertThat(em.find(Booking.class, booking.getId()), equalTo(booking));
         assertThat(booking.getStatus(), equalTo(Status.WAITING));
         assertThat(booking.getItem(), equalTo(item1));
         assertThat(booking.getBooker(), equalTo(user1));
@@ -72,9 +87,9 @@ public class BookingServiceTest {
 
     @Test
     public void test2_getBooking() {
-        bookingService.createBooking(user1.getId(), bookingDto);
-        Booking booking = bookingService.getBooking(1L, user1.getId());
-        assertThat(booking.getId(), equalTo(1L));
+        Booking newBooking = bookingService.createBooking(user1.getId(), bookingDto);
+        Booking booking = bookingService.getBooking(newBooking.getId(), user1.getId());
+        assertThat(booking.getId(), equalTo(newBooking.getId()));
         assertThat(booking.getStatus(), equalTo(Status.WAITING));
         assertThat(booking.getItem(), equalTo(item1));
         assertThat(booking.getBooker(), equalTo(user1));
@@ -95,22 +110,267 @@ public class BookingServiceTest {
     @Test
     public void test4_getAllBooking() {
         Booking booking = bookingService.createBooking(user1.getId(), bookingDto);
-        List<Booking> bookingList = bookingService.getAllBooking(new BookingDtoState(
+        List<BookingDtoWithItem> bookingList = bookingService.getAllBooking(new BookingDtoState(
                         user1.getId(), State.ALL),
                 0,
                 5
         );
-        assertThat(bookingList.get(0), equalTo(booking));
+        assertThat(bookingList.get(0).getId(), equalTo(booking.getId()));
+        assertThat(bookingList.get(0).getItem().getName(), equalTo(item1.getName()));
     }
 
     @Test
     public void test5_getAllBookingByOwner() {
         Booking booking = bookingService.createBooking(user1.getId(), bookingDto);
-        List<Booking> bookingList = bookingService.getAllBookingByOwner(
+        List<BookingDtoWithItem> bookingList = bookingService.getAllBookingByOwner(
                 new BookingDtoState(user2.getId(), State.ALL),
                 0,
                 5
         );
-        assertThat(bookingList.get(0), equalTo(booking));
+        assertThat(bookingList.get(0).getId(), equalTo(booking.getId()));
+        assertThat(bookingList.get(0).getItem().getName(), equalTo(item1.getName()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test6_createBookingWhenPeriodIsAlreadyBooked() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        BookingDto first = new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(3));
+        BookingDto overlapping = new BookingDto(item1.getId(), now.plusDays(2), now.plusDays(3));
+        BookingDto adjacent = new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(4));
+        Booking booking = bookingService.createBooking(user1.getId(), first);
+        assertThrows(NotAvailableBookingException.class, () ->
+                bookingService.createBooking(user1.getId(), overlapping));
+        assertThat(bookingService.createBooking(user1.getId(), adjacent).getStatus(), equalTo(Status.WAITING));
+        bookingService.changeStatus(booking.getId(), false, user2.getId());
+        assertThat(bookingService.createBooking(user1.getId(), overlapping).getStatus(), equalTo(Status.WAITING));
+        assertThrows(NotAvailableBookingException.class, () ->
+                bookingService.changeStatus(booking.getId(), true, user2.getId()));
+    }
+
+    @Test
+    public void test7_getAllBookingByCursor() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking first = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(2)));
+        Booking second = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(4)));
+        Booking third = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(5), now.plusDays(6)));
+        BookingDtoState state = new BookingDtoState(user1.getId(), State.FUTURE);
+        List<BookingDtoWithItem> page1 = bookingService.getAllBooking(state, (KeysetCursor) null, 2);
+        assertThat(ids(page1), equalTo(List.of(third.getId(), second.getId())));
+        BookingDtoWithItem last = page1.get(1);
+        List<BookingDtoWithItem> page2 = bookingService.getAllBooking(state,
+                new KeysetCursor(last.getStart(), last.getId()), 2);
+        assertThat(ids(page2), equalTo(List.of(first.getId())));
+        BookingDtoWithItem top = page1.get(0);
+        List<BookingDtoWithItem> ownerPage = bookingService.getAllBookingByOwner(new BookingDtoState(user2.getId(), State.ALL),
+                new KeysetCursor(top.getStart(), top.getId()), 5);
+        assertThat(ids(ownerPage), equalTo(List.of(second.getId(), first.getId())));
+    }
+
+    @Test
+    public void test8_createBookings() {
+        ItemDto unavailableDto = new ItemDto();
+        unavailableDto.setName("Item2");
+        unavailableDto.setDescription("Item2 for test");
+        unavailableDto.setAvailable(false);
+        Item unavailable = itemService.createItem(unavailableDto, user2.getId());
+        ItemDto ownDto = new ItemDto();
+        ownDto.setName("Item3");
+        ownDto.setDescription("Item3 for test");
+        ownDto.setAvailable(true);
+        Item own = itemService.createItem(ownDto, user1.getId());
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingBatchResult> results = bookingService.createBookings(user1.getId(), List.of(
+                new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(3)),
+                new BookingDto(item1.getId(), now.plusDays(2), now.plusDays(4)),
+                new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(4)),
+                new BookingDto(unavailable.getId(), now.plusDays(1), now.plusDays(2)),
+                new BookingDto(own.getId(), now.plusDays(1), now.plusDays(2)),
+                new BookingDto(own.getId() + 100, now.plusDays(1), now.plusDays(2))
+        ));
+        assertThat(results.stream().map(BookingBatchResult::getStatus).collect(Collectors.toList()), equalTo(List.of(
+                BookingBatchStatus.CREATED,
+                BookingBatchStatus.NOT_AVAILABLE,
+                BookingBatchStatus.CREATED,
+                BookingBatchStatus.NOT_AVAILABLE,
+                BookingBatchStatus.OWN_ITEM,
+                BookingBatchStatus.NOT_FOUND
+        )));
+        Booking booking = bookingService.getBooking(results.get(0).getBooking().getId(), user1.getId());
+        assertThat(booking.getStatus(), equalTo(Status.WAITING));
+        assertThat(booking.getItem(), equalTo(item1));
+        assertThat(results.get(2).getBooking().getBooker().getId(), equalTo(user1.getId()));
+        assertThrows(NotAvailableBookingException.class, () -> bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(2), now.plusDays(3))));
+    }
+
+    @Test
+    public void test9_changeStatuses() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking waiting = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(2)));
+        Booking rejected = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(5)));
+        bookingService.changeStatus(rejected.getId(), false, user2.getId());
+        Booking overlapping = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(4), now.plusDays(6)));
+        List<BookingStatusResult> results = bookingService.changeStatuses(List.of(
+                waiting.getId(), rejected.getId(), overlapping.getId(), overlapping.getId() + 100), true, user2.getId());
+        assertThat(results.stream().map(BookingStatusResult::getOutcome).collect(Collectors.toList()), equalTo(List.of(
+                BookingStatusOutcome.UPDATED,
+                BookingStatusOutcome.NOT_AVAILABLE,
+                BookingStatusOutcome.UPDATED,
+                BookingStatusOutcome.NOT_FOUND
+        )));
+        assertThat(bookingService.getBooking(waiting.getId(), user1.getId()).getStatus(), equalTo(Status.APPROVED));
+        assertThat(bookingService.getBooking(rejected.getId(), user1.getId()).getStatus(), equalTo(Status.REJECTED));
+        results = bookingService.changeStatuses(List.of(waiting.getId()), true, user2.getId());
+        assertThat(results.get(0).getOutcome(), equalTo(BookingStatusOutcome.UNCHANGED));
+        results = bookingService.changeStatuses(List.of(waiting.getId()), false, user1.getId());
+        assertThat(results.get(0).getOutcome(), equalTo(BookingStatusOutcome.NOT_OWNER));
+        results = bookingService.changeStatuses(List.of(waiting.getId(), overlapping.getId()), false, user2.getId());
+        assertThat(results.stream().map(BookingStatusResult::getOutcome).collect(Collectors.toList()), equalTo(List.of(
+                BookingStatusOutcome.UPDATED,
+                BookingStatusOutcome.UPDATED
+        )));
+        assertThat(bookingService.getBooking(overlapping.getId(), user1.getId()).getStatus(), equalTo(Status.REJECTED));
+        assertThat(bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(2))).getStatus(), equalTo(Status.WAITING));
+    }
+
+    @Test
+    public void test10_changeStatusIncrementsVersion() {
+        Booking booking = bookingService.createBooking(user1.getId(), bookingDto);
+        assertThat(booking.getVersion(), equalTo(0L));
+        booking = bookingService.changeStatus(booking.getId(), true, user2.getId());
+        assertThat(booking.getStatus(), equalTo(Status.APPROVED));
+        assertThat(booking.getVersion(), equalTo(1L));
+        booking = bookingService.changeStatus(booking.getId(), false, user2.getId());
+        assertThat(booking.getVersion(), equalTo(2L));
+        long bookingId = booking.getId();
+        assertThrows(NotAvailableBookingException.class, () ->
+                bookingService.changeStatus(bookingId, false, user2.getId()));
+        assertThrows(NotFoundUserException.class, () ->
+                bookingService.changeStatus(bookingId, true, user1.getId()));
+        assertThat(bookingService.getBooking(bookingId, user1.getId()).getVersion(), equalTo(2L));
+    }
+
+    @Test
+    public void test11_itemBookingSummary() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking last = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.minusDays(3), now.minusDays(2)));
+        Booking next = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(2)));
+        Booking later = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(4)));
+        ItemBookingSummary summary = itemBookingSummaryRepository.findById(item1.getId()).orElseThrow();
+        assertThat(summary.getLastBookingId(), equalTo(last.getId()));
+        assertThat(summary.getNextBookingId(), equalTo(next.getId()));
+        assertThat(summary.getNextBookerId(), equalTo(user1.getId()));
+        assertThat(summary.getValidUntil(), equalTo(next.getStart()));
+        ItemBookingSummary computed = itemBookingSummaryStore.get(List.of(item1.getId()), now.plusDays(1).plusHours(1))
+                .get(item1.getId());
+        assertThat(computed.getLastBookingId(), equalTo(last.getId()));
+        assertThat(computed.getNextBookingId(), equalTo(later.getId()));
+        summary.setNextBookingId(null);
+        summary.setValidUntil(now.minusMinutes(1));
+        itemBookingSummaryStore.rollForward();
+        summary = itemBookingSummaryRepository.findById(item1.getId()).orElseThrow();
+        assertThat(summary.getNextBookingId(), equalTo(next.getId()));
+        assertThat(summary.isValidAt(LocalDateTime.now()), equalTo(true));
+    }
+
+    @Test
+    public void test12_getBookingStats() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking past = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.minusDays(3), now.minusDays(2)));
+        bookingService.changeStatus(past.getId(), true, user2.getId());
+        bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.minusDays(1), now.plusDays(1)));
+        Booking future = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(2), now.plusDays(3)));
+        bookingService.changeStatus(future.getId(), false, user2.getId());
+        BookingStats expected = new BookingStats(3, 1, 1, 1, 1, 1, 1, 0);
+        assertThat(bookingService.getBookingStats(user1.getId()), equalTo(expected));
+        assertThat(bookingService.getBookingStatsByOwner(user2.getId()), equalTo(expected));
+        assertThat(bookingService.getBookingStatsByOwner(user1.getId()), equalTo(new BookingStats()));
+        assertThrows(NotFoundUserException.class, () -> bookingService.getBookingStats(user2.getId() + 100));
+    }
+
+    @Test
+    public void test13_exportBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking first = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(2)));
+        Booking second = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(4)));
+        List<BookingDtoWithItem> exported = new ArrayList<>();
+        bookingService.exportBookings(user1.getId(), exported::add);
+        assertThat(ids(exported), equalTo(List.of(second.getId(), first.getId())));
+        exported.clear();
+        bookingService.exportBookingsByOwner(user2.getId(), exported::add);
+        assertThat(ids(exported), equalTo(List.of(second.getId(), first.getId())));
+        assertThat(exported.get(0).getItem().getName(), equalTo(item1.getName()));
+        assertThrows(NotFoundUserException.class, () -> bookingService.checkUser(user2.getId() + 100));
+    }
+
+    @Test
+    public void test14_expireWaitingBookings() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking first = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(1), now.plusDays(2)));
+        Booking approved = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(2), now.plusDays(3)));
+        bookingService.changeStatus(approved.getId(), true, user2.getId());
+        Booking second = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(4)));
+        Booking notStarted = bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(6), now.plusDays(7)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BookingExpiryJob job = new BookingExpiryJob(bookingRepository, bookingIntervalIndex, transactionManager,
+                meterRegistry, 1);
+        assertThat(job.expire(now.plusDays(5)), equalTo(2));
+        assertThat(bookingService.getBooking(first.getId(), user1.getId()).getStatus(), equalTo(Status.CANCELED));
+        assertThat(bookingService.getBooking(second.getId(), user1.getId()).getStatus(), equalTo(Status.CANCELED));
+        assertThat(bookingService.getBooking(approved.getId(), user1.getId()).getStatus(), equalTo(Status.APPROVED));
+        assertThat(bookingService.getBooking(notStarted.getId(), user1.getId()).getStatus(), equalTo(Status.WAITING));
+        assertThat(job.expire(now.plusDays(5)), equalTo(0));
+        assertThat(meterRegistry.counter("shareit.booking.expiry.expired").count(), equalTo(2.0));
+        assertThat(meterRegistry.summary("shareit.booking.expiry.run.rows").count(), equalTo(2L));
+        assertThat(bookingIntervalIndex.hasOverlap(item1.getId(), now.plusDays(1), now.plusDays(2), 0), equalTo(false));
+    }
+
+    @Test
+    public void test15_overlapRejectedByDatabaseConstraint() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        assertThat(bookingIntervalIndex.hasOverlap(item1.getId(), now.plusDays(1), now.plusDays(2), 0), equalTo(false));
+        insertBooking(1000, now.plusDays(3), now.plusDays(4), Status.APPROVED);
+        insertBooking(1001, now.plusDays(3), now.plusDays(4), Status.REJECTED);
+        assertThat(bookingIntervalIndex.hasOverlap(item1.getId(), now.plusDays(3), now.plusDays(5), 0), equalTo(false));
+        assertThrows(NotAvailableBookingException.class, () -> bookingService.createBooking(user1.getId(),
+                new BookingDto(item1.getId(), now.plusDays(3), now.plusDays(5))));
+        assertThat(bookingIntervalIndex.hasOverlap(item1.getId(), now.plusDays(3), now.plusDays(5), 0), equalTo(true));
+    }
+
+    private void insertBooking(long id, LocalDateTime start, LocalDateTime end, Status status) {
+        em.createNativeQuery("insert into booking (id, start_date, end_date, item_id, booker_id, status) " +
+                        "values (?1, ?2, ?3, ?4, ?5, ?6)")
+                .setParameter(1, id)
+                .setParameter(2, start)
+                .setParameter(3, end)
+                .setParameter(4, item1.getId())
+                .setParameter(5, user1.getId())
+                .setParameter(6, status.name())
+                .executeUpdate();
+    }
+
+    private List<Long> ids(List<BookingDtoWithItem> bookings) {
+        return bookings.stream()
+                .map(BookingDtoWithItem::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -17,8 +17,10 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @ExtendWith(MockitoExtension.class)
 public class BookingServiceUnitTest {
@@ -28,12 +30,20 @@ public class BookingServiceUnitTest {
     private ItemRepository itemRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemBookingSummaryStore itemBookingSummaryStore;
+    @Mock
+    private BookingItemLocks bookingItemLocks;
     @InjectMocks
     private BookingServiceImpl service;
     private final Item item1 = new Item(1L, "Item1", "Description for item 1", true);
     private final User user1 = new User(1L, "User1", "user1@ya.ru");
     private final User user2 = new User(2L, "User2", "user2@ya.ru");
     private final Booking booking1 = new Booking(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+    private final BookingDtoWithItem bookingInfo1 = new BookingDtoWithItem(1L, LocalDateTime.now().minusDays(1),
+            LocalDateTime.now().plusDays(1), Status.APPROVED, 1L, "Item1", 2L, "User2");
     private final BookingDto bookingDto = new BookingDto(1L, LocalDateTime.now(), LocalDateTime.now());
     private final int from = 0;
     private final int size = 5;
@@ -156,10 +166,10 @@ public class BookingServiceUnitTest {
         booking2.setEnd(booking1.getEnd());
         Mockito
                 .when(bookingRepository.findById(Mockito.anyLong()))
-                .thenReturn(Optional.of(booking1));
+                .thenReturn(Optional.of(booking1), Optional.of(booking2));
         Mockito
-                .when(bookingRepository.save(Mockito.any(Booking.class)))
-                .thenReturn(booking2);
+                .when(bookingRepository.updateStatusIfVersion(booking1.getId(), Status.APPROVED, booking1.getVersion()))
+                .thenReturn(1);
         Booking booking = service.changeStatus(booking1.getId(), true, user1.getId());
         Assertions.assertEquals(booking2, booking);
     }
@@ -233,23 +243,20 @@ public class BookingServiceUnitTest {
         booking2.setStart(booking1.getStart());
         booking2.setEnd(booking1.getEnd());
         Mockito
-                .when(bookingRepository.findById(Mockito.anyLong()))
-                .thenReturn(Optional.of(booking1));
+                .when(bookingRepository.updateStatus(booking1.getId(), Status.REJECTED,
+                        EnumSet.complementOf(EnumSet.of(Status.REJECTED)), user1.getId()))
+                .thenReturn(1);
         Mockito
-                .when(bookingRepository.save(Mockito.any(Booking.class)))
-                .thenReturn(booking2);
+                .when(bookingRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booking2));
         Booking booking = service.changeStatus(booking1.getId(), false, user1.getId());
         Assertions.assertEquals(booking2, booking);
+        Mockito.verify(bookingRepository, Mockito.never()).save(Mockito.any(Booking.class));
     }
 
     @Test
     public void test15_tryGetAllBookingWhenStateIsPast() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.PAST);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -259,19 +266,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(LocalDateTime.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test16_tryGetAllBookingWhenStateIsFuture() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.FUTURE);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -281,19 +283,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(LocalDateTime.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test17_tryGetAllBookingWhenStateIsCurrent() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.CURRENT);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -303,19 +300,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(LocalDateTime.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test18_tryGetAllBookingWhenStateIsAll() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.ALL);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -324,19 +316,14 @@ public class BookingServiceUnitTest {
                         Mockito.anyLong(),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test19_tryGetAllBookingWhenStateIsWaiting() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.WAITING);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -346,19 +333,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test20_tryGetAllBookingWhenStateIsApproved() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.APPROVED);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -368,19 +350,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test21_tryGetAllBookingWhenStateIsRejected() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.REJECTED);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -390,19 +367,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test22_tryGetAllBookingWhenStateIsCanceled() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.CANCELED);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -412,9 +384,9 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBooking(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBooking(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
@@ -432,11 +404,6 @@ public class BookingServiceUnitTest {
     @Test
     public void test25_tryGetAllBookingByOwnerWhenStateIsPast() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.PAST);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -446,19 +413,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(LocalDateTime.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test26_tryGetAllBookingByOwnerWhenStateIsFuture() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.FUTURE);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -468,19 +430,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(LocalDateTime.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test27_tryGetAllBookingByOwnerWhenStateIsCurrent() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.CURRENT);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -490,19 +447,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(LocalDateTime.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test28_tryGetAllBookingByOwnerWhenStateIsAll() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.ALL);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -511,19 +463,14 @@ public class BookingServiceUnitTest {
                         Mockito.anyLong(),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test29_tryGetAllBookingByOwnerWhenStateIsWaiting() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.WAITING);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -533,19 +480,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test30_tryGetAllBookingByOwnerWhenStateIsApproved() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.APPROVED);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -555,19 +497,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test31_tryGetAllBookingByOwnerWhenStateIsRejected() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.REJECTED);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -577,19 +514,14 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
     public void test32_tryGetAllBookingByOwnerWhenStateIsCanceled() {
         BookingDtoState bookingDtoState = new BookingDtoState(user1.getId(), State.CANCELED);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("start").ascending());
-        List<Booking> list = List.of(booking1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Booking> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
                 .when(userRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(user1));
@@ -599,9 +531,9 @@ public class BookingServiceUnitTest {
                         Mockito.any(Status.class),
                         Mockito.any(Pageable.class))
                 )
-                .thenReturn(page);
-        List<Booking> result = service.getAllBookingByOwner(bookingDtoState, from, size);
-        Assertions.assertEquals(List.of(booking1), result);
+                .thenReturn(List.of(bookingInfo1));
+        List<BookingDtoWithItem> result = service.getAllBookingByOwner(bookingDtoState, from, size);
+        Assertions.assertEquals(List.of(bookingInfo1), result);
     }
 
     @Test
@@ -615,4 +547,145 @@ public class BookingServiceUnitTest {
         Assertions.assertEquals("Пользователь id = 1 не найден",
                 thrown.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test34_tryCreateBookingWhenPeriodIsAlreadyBooked() {
+        item1.setOwner(user2);
+        bookingDto.setItemId(1L);
+        Mockito
+                .when(itemRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(item1));
+        Mockito
+                .when(bookingIntervalIndex.hasOverlap(
+                        Mockito.anyLong(),
+                        Mockito.any(LocalDateTime.class),
+                        Mockito.any(LocalDateTime.class),
+                        Mockito.anyLong()))
+                .thenReturn(true);
+        NotAvailableBookingException thrown = Assertions.assertThrows(NotAvailableBookingException.class, () ->
+                service.createBooking(user1.getId(), bookingDto));
+        Assertions.assertEquals("Вещь с id = 1 уже забронирована на указанный период", thrown.getMessage());
+        Mockito.verify(bookingRepository, Mockito.never()).save(Mockito.any(Booking.class));
+    }
+
+    @Test
+    public void test35_tryApproveRejectedBookingWhenPeriodIsAlreadyBooked() {
+        item1.setOwner(user1);
+        booking1.setId(1L);
+        booking1.setItem(item1);
+        booking1.setStatus(Status.REJECTED);
+        Mockito
+                .when(bookingRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booking1));
+        Mockito
+                .when(bookingIntervalIndex.hasOverlap(item1.getId(), booking1.getStart(), booking1.getEnd(), 1L))
+                .thenReturn(true);
+        Assertions.assertThrows(NotAvailableBookingException.class, () ->
+                service.changeStatus(booking1.getId(), true, user1.getId()));
+        Mockito.verify(bookingRepository, Mockito.never()).save(Mockito.any(Booking.class));
+    }
+
+    @Test
+    public void test36_tryChangeStatusWhenBookingWasChangedConcurrently() {
+        item1.setOwner(user1);
+        booking1.setId(1L);
+        booking1.setItem(item1);
+        booking1.setStatus(Status.WAITING);
+        Mockito
+                .when(bookingRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(booking1));
+        NotAvailableBookingException thrown = Assertions.assertThrows(NotAvailableBookingException.class, () ->
+                service.changeStatus(booking1.getId(), true, user1.getId()));
+        Assertions.assertEquals("Бронирование id = 1 было изменено другим запросом", thrown.getMessage());
+    }
+
+    @Test
+    public void test37_tryChangeStatusesWhenBookingWasChangedConcurrently() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Mockito
+                .when(bookingRepository.findStatusViews(Mockito.anyCollection()))
+                .thenReturn(List.of(statusView(1L, Status.WAITING, start, 0), statusView(2L, Status.WAITING, start, 0)))
+                .thenReturn(List.of(statusView(1L, Status.REJECTED, start, 1), statusView(2L, Status.CANCELED, start, 1)));
+        Mockito
+                .when(bookingRepository.updateStatusByOwner(Status.REJECTED, List.of(1L, 2L), user1.getId()))
+                .thenReturn(1);
+        List<BookingStatusResult> results = service.changeStatuses(List.of(1L, 2L), false, user1.getId());
+        Assertions.assertEquals(BookingStatusOutcome.UPDATED, results.get(0).getOutcome());
+        Assertions.assertEquals(BookingStatusOutcome.CONFLICT, results.get(1).getOutcome());
+        Assertions.assertEquals("Бронирование id = 2 было изменено другим запросом", results.get(1).getMessage());
+        Mockito.verify(bookingIntervalIndex).update(1L, 1L, Status.REJECTED, start, start.plusDays(1));
+        Mockito.verify(bookingIntervalIndex, Mockito.never())
+                .update(Mockito.anyLong(), Mockito.eq(2L), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void test38_tryCreateBookingsWhenPeriodIsBookedOnAnotherInstance() {
+        item1.setOwner(user2);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ItemBookingPeriod busy = Mockito.mock(ItemBookingPeriod.class);
+        Mockito.when(busy.getItemId()).thenReturn(item1.getId());
+        Mockito.when(busy.getId()).thenReturn(10L);
+        Mockito.when(busy.getStart()).thenReturn(start);
+        Mockito.when(busy.getEnd()).thenReturn(start.plusDays(1));
+        Mockito
+                .when(userRepository.findById(user1.getId()))
+                .thenReturn(Optional.of(user1));
+        Mockito
+                .when(itemRepository.findAllByIdIn(Set.of(item1.getId())))
+                .thenReturn(List.of(item1));
+        Mockito
+                .when(bookingRepository.findItemsActivePeriodsBetween(Set.of(item1.getId()), start,
+                        start.plusDays(4), BookingIntervalIndex.ACTIVE_STATUSES))
+                .thenReturn(List.of(busy));
+        Mockito
+                .when(bookingRepository.saveAll(Mockito.anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        List<BookingBatchResult> results = service.createBookings(user1.getId(), List.of(
+                new BookingDto(item1.getId(), start, start.plusDays(2)),
+                new BookingDto(item1.getId(), start.plusDays(3), start.plusDays(4))));
+        Assertions.assertEquals(BookingBatchStatus.NOT_AVAILABLE, results.get(0).getStatus());
+        Assertions.assertEquals(BookingBatchStatus.CREATED, results.get(1).getStatus());
+        Mockito.verify(bookingRepository).saveAll(Mockito.argThat(bookings -> ((List<?>) bookings).size() == 1));
+        Mockito.verify(bookingIntervalIndex, Mockito.never()).hasOverlap(Mockito.anyLong(),
+                Mockito.any(), Mockito.any(), Mockito.anyLong());
+    }
+
+    private BookingStatusView statusView(long id, Status status, LocalDateTime start, long version) {
+        return new BookingStatusView() {
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public long getItemId() {
+                return id;
+            }
+
+            @Override
+            public long getOwnerId() {
+                return user1.getId();
+            }
+
+            @Override
+            public Status getStatus() {
+                return status;
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return start.plusDays(1);
+            }
+
+            @Override
+            public long getVersion() {
+                return version;
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Аналог исключающего ограничения booking_item_period_excl из PostgreSQL для H2:
+ * отклоняет активное бронирование, пересекающееся с другим активным бронированием той же вещи,
+ * с тем же SQLSTATE 23P01.
+ */
+public class H2BookingOverlapTrigger implements Trigger {
+    public static final String EXCLUSION_VIOLATION = "23P01";
+    private static final Set<String> ACTIVE_STATUSES = Set.of(Status.WAITING.name(), Status.APPROVED.name());
+    private int id;
+    private int start;
+    private int end;
+    private int itemId;
+    private int status;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+                     int type) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement statement = conn.prepareStatement("select column_name from information_schema.columns " +
+                "where table_schema = ? and table_name = ? order by ordinal_position")) {
+            statement.setString(1, schemaName);
+            statement.setString(2, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    columns.add(resultSet.getString(1).toLowerCase());
+                }
+            }
+        }
+        id = columns.indexOf("id");
+        start = columns.indexOf("start_date");
+        end = columns.indexOf("end_date");
+        itemId = columns.indexOf("item_id");
+        status = columns.indexOf("status");
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (newRow == null || !ACTIVE_STATUSES.contains(String.valueOf(newRow[status]))
+                || newRow[start] == null || newRow[end] == null) {
+            return;
+        }
+        try (PreparedStatement statement = conn.prepareStatement("select 1 from booking " +
+                "where item_id = ? and id <> ? and status in ('WAITING', 'APPROVED') " +
+                "and start_date < ? and end_date > ? and start_date < end_date")) {
+            statement.setObject(1, newRow[itemId]);
+            statement.setObject(2, newRow[id]);
+            statement.setObject(3, newRow[end]);
+            statement.setObject(4, newRow[start]);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    throw new SQLException("conflicting key value violates exclusion constraint " +
+                            "\"booking_item_period_excl\"", EXCLUSION_VIOLATION);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+public class ReadWriteRoutingDataSourceTest {
+    private final DataSource primary = database("router_primary");
+    private final DataSource replica = database("router_replica");
+
+    @BeforeEach
+    public void setUp() {
+        new JdbcTemplate(primary).execute("create table if not exists node (name varchar(20))");
+        new JdbcTemplate(primary).execute("merge into node key (name) values ('primary')");
+        new JdbcTemplate(replica).execute("create table if not exists node (name varchar(20))");
+        new JdbcTemplate(replica).execute("merge into node key (name) values ('replica')");
+    }
+
+    @AfterEach
+    public void clearUser() {
+        ReadWriteRoutingDataSource.setCurrentUser(null);
+    }
+
+    @Test
+    public void test1_routeReadOnlyTransactionsToReplica() {
+        Router router = new Router(primary, replica, Duration.ofSeconds(5));
+        Assertions.assertEquals("replica", router.node(true));
+        Assertions.assertEquals("primary", router.node(false));
+        Assertions.assertEquals("primary", router.jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    public void test2_readOwnWriteFromPrimary() {
+        Router router = new Router(primary, replica, Duration.ofSeconds(5));
+        ReadWriteRoutingDataSource.setCurrentUser(1L);
+        Assertions.assertEquals("replica", router.node(true));
+        Assertions.assertEquals("primary", router.node(false));
+        Assertions.assertEquals("primary", router.node(true));
+        ReadWriteRoutingDataSource.setCurrentUser(2L);
+        Assertions.assertEquals("replica", router.node(true));
+    }
+
+    @Test
+    public void test3_ignoreWritesOlderThanMaxStaleness() {
+        Router router = new Router(primary, replica, Duration.ZERO);
+        ReadWriteRoutingDataSource.setCurrentUser(1L);
+        Assertions.assertEquals("primary", router.node(false));
+        Assertions.assertEquals("replica", router.node(true));
+    }
+
+    @Test
+    public void test4_fallbackToPrimaryWhenReplicaIsDown() {
+        JdbcDataSource missing = new JdbcDataSource();
+        missing.setURL("jdbc:h2:mem:router_missing;IFEXISTS=TRUE");
+        Router router = new Router(primary, missing, Duration.ofSeconds(5));
+        Assertions.assertEquals("primary", router.node(true));
+        Assertions.assertEquals("primary", router.node(true));
+    }
+
+    @Test
+    public void test5_primaryReadTemplateUsesPrimaryInsideReadOnlyTransaction() {
+        Router router = new Router(primary, replica, Duration.ofSeconds(5));
+        PrimaryReadTemplate primaryRead = new PrimaryReadTemplate(router.transactionTemplate.getTransactionManager(), true);
+        ReadWriteRoutingDataSource.setCurrentUser(1L);
+        router.transactionTemplate.setReadOnly(true);
+        Assertions.assertEquals(List.of("replica", "primary"), router.transactionTemplate.execute(status ->
+                List.of(router.name(), primaryRead.execute(s -> router.name()))));
+        Assertions.assertEquals("primary", primaryRead.execute(status -> router.name()));
+        Assertions.assertEquals("replica", router.node(true));
+    }
+
+    @Test
+    public void test6_primaryReadTemplateJoinsTransactionWhenReplicaIsDisabled() {
+        Router router = new Router(primary, replica, Duration.ofSeconds(5));
+        PrimaryReadTemplate enabled = new PrimaryReadTemplate(router.transactionTemplate.getTransactionManager(), true);
+        PrimaryReadTemplate disabled = new PrimaryReadTemplate(router.transactionTemplate.getTransactionManager(),
+                false);
+        router.transactionTemplate.setReadOnly(true);
+        Assertions.assertEquals(Boolean.TRUE, router.transactionTemplate.execute(status ->
+                enabled.execute(TransactionStatus::isNewTransaction)));
+        Assertions.assertEquals(Boolean.FALSE, router.transactionTemplate.execute(status ->
+                disabled.execute(TransactionStatus::isNewTransaction)));
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static class Router {
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate transactionTemplate;
+
+        Router(DataSource primary, DataSource replica, Duration maxStaleness) {
+            DataSource dataSource = new LazyConnectionDataSourceProxy(
+                    new ReadWriteRoutingDataSource(primary, replica, maxStaleness, Duration.ofSeconds(30)));
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        }
+
+        String node(boolean readOnly) {
+            transactionTemplate.setReadOnly(readOnly);
+            return transactionTemplate.execute(status -> name());
+        }
+
+        String name() {
+            return jdbcTemplate.queryForObject("select name from node", String.class);
+        }
+    }
+}
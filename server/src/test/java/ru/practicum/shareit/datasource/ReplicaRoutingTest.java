@@ -0,0 +1,71 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+@SpringBootTest(
+        properties = {
+                "db.name=routing",
+                "shareit.datasource.replica.enabled=true",
+                "shareit.datasource.replica.url=jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1;"
+                        + "INIT=RUNSCRIPT FROM 'classpath:schema.sql'"
+        },
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        classes = ShareItApp.class)
+public class ReplicaRoutingTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void clearUser() {
+        ReadWriteRoutingDataSource.setCurrentUser(null);
+    }
+
+    @Test
+    public void test1_readOnlyServiceMethodsUseReplica() {
+        User user = userService.createUser(new User(0, "User", "user@routing.ru"));
+        assertThat(userService.getUsers(0, 10), empty());
+        ReadWriteRoutingDataSource.setCurrentUser(user.getId());
+        userService.updateUser(user.getId(), new User(0, "Updated", null));
+        assertThat(userService.getUsers(0, 10), hasSize(1));
+    }
+
+    @Test
+    public void test2_sharedCachesAreLoadedFromPrimary() {
+        User owner = userService.createUser(new User(0, "Owner", "owner@routing.ru"));
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("Дрель");
+        itemDto.setDescription("Простая дрель");
+        itemDto.setAvailable(true);
+        Item item = itemService.createItem(itemDto, owner.getId());
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertThat(readOnly.execute(status -> userService.getUsers(0, 10)), empty());
+        assertThat(readOnly.execute(status -> itemSearchIndex.search("дрель", 0, 10).orElseThrow()),
+                equalTo(List.of(item.getId())));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Transactional
+@SpringBootTest(
+        properties = "db.name=test",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        classes = ShareItApp.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class DatabaseIdempotencyStoreTest {
+    private final IdempotencyRecordRepository recordRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Test
+    public void test1_replayStoredResponse() {
+        DatabaseIdempotencyStore store = store(Duration.ofHours(1));
+        AtomicInteger calls = new AtomicInteger();
+        ItemDto first = store.execute(1L, "POST /items", "key", ItemDto.class,
+                () -> new ItemDto(calls.incrementAndGet(), "Item", "Description", true));
+        ItemDto replayed = store.execute(1L, "POST /items", "key", ItemDto.class,
+                () -> new ItemDto(calls.incrementAndGet(), "Item", "Description", true));
+        assertThat(replayed, equalTo(first));
+        assertThat(calls.get(), equalTo(1));
+        assertThat(recordRepository.existsById("1:POST /items:key"), equalTo(true));
+    }
+
+    @Test
+    public void test2_doNotStoreFailedResponse() {
+        DatabaseIdempotencyStore store = store(Duration.ofHours(1));
+        assertThrows(IllegalStateException.class, () -> store.execute(1L, "POST /items", "failed",
+                String.class, () -> {
+                    throw new IllegalStateException();
+                }));
+        assertThat(recordRepository.existsById("1:POST /items:failed"), equalTo(false));
+    }
+
+    @Test
+    public void test3_replaceAndDeleteExpiredResponse() {
+        recordRepository.save(new IdempotencyRecord("1:POST /items:old", "\"old\"", LocalDateTime.now().minusHours(2)));
+        DatabaseIdempotencyStore store = store(Duration.ofHours(1));
+        assertThat(store.execute(1L, "POST /items", "old", String.class, () -> "new"), equalTo("new"));
+        assertThat(store.execute(1L, "POST /items", "old", String.class, () -> "newer"), equalTo("new"));
+        recordRepository.save(new IdempotencyRecord("1:POST /items:expired", "\"old\"",
+                LocalDateTime.now().minusHours(2)));
+        store.deleteExpired();
+        assertThat(recordRepository.existsById("1:POST /items:expired"), equalTo(false));
+        assertThat(recordRepository.existsById("1:POST /items:old"), equalTo(true));
+    }
+
+    private DatabaseIdempotencyStore store(Duration ttl) {
+        return new DatabaseIdempotencyStore(recordRepository, transactionManager, objectMapper, ttl);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.idempotency;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoryIdempotencyStoreTest {
+
+    @Test
+    public void test1_replayStoredResponse() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10);
+        AtomicInteger calls = new AtomicInteger();
+        Assertions.assertEquals("1", store.execute(1L, "POST /items", "key", String.class,
+                () -> String.valueOf(calls.incrementAndGet())));
+        Assertions.assertEquals("1", store.execute(1L, "POST /items", "key", String.class,
+                () -> String.valueOf(calls.incrementAndGet())));
+        Assertions.assertEquals("2", store.execute(2L, "POST /items", "key", String.class,
+                () -> String.valueOf(calls.incrementAndGet())));
+        Assertions.assertEquals("3", store.execute(1L, "POST /bookings", "key", String.class,
+                () -> String.valueOf(calls.incrementAndGet())));
+        Assertions.assertEquals("4", store.execute(1L, "POST /items", null, String.class,
+                () -> String.valueOf(calls.incrementAndGet())));
+        Assertions.assertEquals("5", store.execute(1L, "POST /items", null, String.class,
+                () -> String.valueOf(calls.incrementAndGet())));
+    }
+
+    @Test
+    public void test2_doNotStoreFailedResponse() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10);
+        Assertions.assertThrows(IllegalStateException.class, () -> store.execute(1L, "POST /items", "key",
+                String.class, () -> {
+                    throw new IllegalStateException();
+                }));
+        Assertions.assertEquals("ok", store.execute(1L, "POST /items", "key", String.class, () -> "ok"));
+    }
+
+    @Test
+    public void test3_evictOldestEntries() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 2);
+        store.execute(1L, "POST /items", "key1", String.class, () -> "1");
+        store.execute(1L, "POST /items", "key2", String.class, () -> "2");
+        store.execute(1L, "POST /items", "key3", String.class, () -> "3");
+        Assertions.assertEquals("3", store.execute(1L, "POST /items", "key3", String.class, () -> "new"));
+        Assertions.assertEquals("new", store.execute(1L, "POST /items", "key1", String.class, () -> "new"));
+        MemoryIdempotencyStore expiring = new MemoryIdempotencyStore(Duration.ZERO, 10);
+        expiring.execute(1L, "POST /items", "key", String.class, () -> "1");
+        Assertions.assertEquals("2", expiring.execute(1L, "POST /items", "key", String.class, () -> "2"));
+    }
+
+    @Test
+    public void test4_tryExecuteWithWrongKey() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10);
+        Assertions.assertThrows(InvalidIdempotencyKeyException.class, () ->
+                store.execute(1L, "POST /items", " ", String.class, () -> "1"));
+        Assertions.assertThrows(InvalidIdempotencyKeyException.class, () ->
+                store.execute(1L, "POST /items", "k".repeat(65), String.class, () -> "1"));
+    }
+
+    @Test
+    public void test5_keepEntriesInProgress() throws Exception {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                store.execute(1L, "POST /items", "key1", String.class, () -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "1";
+                }));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Assertions.assertThrows(IdempotencyStoreFullException.class, () ->
+                store.execute(1L, "POST /items", "key2", String.class, () -> "2"));
+        release.countDown();
+        Assertions.assertEquals("1", first.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("1", store.execute(1L, "POST /items", "key1", String.class,
+                () -> String.valueOf(calls.incrementAndGet())));
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals("2", store.execute(1L, "POST /items", "key2", String.class, () -> "2"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
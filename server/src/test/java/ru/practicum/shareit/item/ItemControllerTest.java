@@ -7,19 +7,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentDtoFromRequest;
+import ru.practicum.shareit.idempotency.IdempotencyStore;
+import ru.practicum.shareit.idempotency.MemoryIdempotencyStore;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBooking;
 import ru.practicum.shareit.user.User;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.when;
@@ -30,6 +36,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class ItemControllerTest {
     @Mock
     private ItemService itemService;
+    @Spy
+    private IdempotencyStore idempotencyStore = new MemoryIdempotencyStore(Duration.ofHours(1), 100);
     @InjectMocks
     private ItemController controller;
     private MockMvc mvc;
@@ -189,4 +197,47 @@ public class ItemControllerTest {
             throw new RuntimeException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test7_tryGetAvailability() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusYears(1);
+        when(itemService.getAvailability(1L, from, to))
+                .thenReturn(List.of(new FreePeriod(from, from.plusDays(1)), new FreePeriod(from.plusDays(3), to)));
+        try {
+            mvc.perform(get("/items/{itemId}/availability", 1)
+                            .param("from", "2030-01-01T00:00:00")
+                            .param("to", "2031-01-01T00:00:00")
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verify(itemService).getAvailability(1L, from, to);
+    }
+
+    @Test
+    public void test8_tryCreateItemWithIdempotencyKey() {
+        when(itemService.createItem(Mockito.any(ItemDto.class), Mockito.anyLong()))
+                .thenReturn(ItemMapper.toItem(itemDto));
+        try {
+            for (long userId = 1; userId <= 2; userId++) {
+                for (int i = 0; i < 2; i++) {
+                    mvc.perform(post("/items")
+                                    .content(mapper.writeValueAsString(itemDto))
+                                    .characterEncoding(StandardCharsets.UTF_8)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .accept(MediaType.APPLICATION_JSON)
+                                    .header("X-Sharer-User-Id", userId)
+                                    .header(IdempotencyStore.HEADER, "item-1"))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.id", is(itemDto.getId()), Long.class));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verify(itemService, Mockito.times(2)).createItem(Mockito.any(ItemDto.class), Mockito.anyLong());
+    }
+}
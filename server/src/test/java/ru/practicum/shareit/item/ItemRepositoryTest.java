@@ -12,13 +12,14 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.requests.ItemRequest;
 import ru.practicum.shareit.user.User;
 
-import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @DataJpaTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -70,17 +71,19 @@ public class ItemRepositoryTest {
 
     @Test
     public void test2_trySearchItems() {
-        Query nativeQuery = entityManager.getEntityManager()
-                .createNativeQuery("SELECT * from items " +
-                        "where lower(name) like lower(concat('%', :text, '%')) " +
-                        "or lower(description) like lower(concat('%', :text, '%')) " +
-                        "and available=true", Item.class);
-        nativeQuery.setParameter("text", "item for test 1");
-        List<Item> items = nativeQuery.getResultList();
+        List<Item> items = repository.findItems("item for test 1", PageRequest.of(0, 5));
         Assertions.assertEquals(1, items.size());
         Assertions.assertEquals(item1, items.get(0));
     }
 
+    @Test
+    public void test4_trySearchItemsSkipsUnavailableByName() {
+        item1.setAvailable(false);
+        entityManager.flush();
+        List<Item> items = repository.findItems("item", PageRequest.of(0, 5));
+        Assertions.assertEquals(List.of(item2), items);
+    }
+
     @Test
     public void test3_tryFindItemsByRequest() {
         TypedQuery<Item> query = entityManager.getEntityManager()
@@ -89,4 +92,11 @@ public class ItemRepositoryTest {
         Assertions.assertEquals(1, item.size());
         Assertions.assertEquals(item2, item.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test5_tryFindItemDtosByRequests() {
+        Map<Long, List<ItemDto>> items = repository.findItemDtosByRequests(List.of(itemRequest.getId(), 100L));
+        Assertions.assertEquals(Map.of(itemRequest.getId(), List.of(ItemMapper.toItemDto(item2))), items);
+        Assertions.assertEquals(Map.of(), repository.findItemDtosByRequests(List.of()));
+    }
+}
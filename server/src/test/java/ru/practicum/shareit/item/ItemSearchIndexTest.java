@@ -0,0 +1,131 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void test1_searchByTrigrams() {
+        Mockito
+                .when(itemRepository.findAllForSearch())
+                .thenReturn(List.of(
+                        view(1L, "Дрель", "Простая дрель", true),
+                        view(2L, "Отвертка", "Аккумуляторная отвертка", true),
+                        view(3L, "Дрель ударная", "Мощная", false),
+                        view(4L, "Перфоратор", "Ударная дрель-перфоратор", true)));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, primaryRead(), "memory");
+        Assertions.assertEquals(Optional.of(List.of(1L, 4L)), index.search("ДРЕЛЬ", 0, 10));
+        Assertions.assertEquals(Optional.of(List.of(1L, 4L)), index.search("дрель", 1, 10));
+        Assertions.assertEquals(Optional.of(List.of(1L)), index.search("дрель", 0, 1));
+        Assertions.assertEquals(Optional.of(List.of(4L)), index.search("дрель", 1, 1));
+        Assertions.assertEquals(Optional.of(List.of(2L)), index.search("ккум", 0, 10));
+        Assertions.assertEquals(Optional.of(List.of()), index.search("пила", 0, 10));
+        Assertions.assertEquals(Optional.empty(), index.search("др", 0, 10));
+        Mockito.verify(itemRepository, Mockito.times(1)).findAllForSearch();
+    }
+
+    @Test
+    public void test2_indexUpdatedItem() {
+        Mockito
+                .when(itemRepository.findAllForSearch())
+                .thenReturn(List.of(view(1L, "Дрель", "Простая дрель", true)));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, primaryRead(), "memory");
+        Assertions.assertEquals(Optional.of(List.of(1L)), index.search("дрель", 0, 10));
+        index.index(new Item(1L, "Пила", "Ножовка", true));
+        index.index(new Item(2L, "Дрель", "Новая", true));
+        Assertions.assertEquals(Optional.of(List.of(2L)), index.search("дрель", 0, 10));
+        Assertions.assertEquals(Optional.of(List.of(1L)), index.search("ножов", 0, 10));
+        index.index(new Item(2L, "Дрель", "Новая", false));
+        Assertions.assertEquals(Optional.of(List.of()), index.search("дрель", 0, 10));
+    }
+
+    @Test
+    public void test3_disabledForDatabaseBackend() {
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, primaryRead(), "database");
+        index.index(new Item(1L, "Дрель", "Простая дрель", true));
+        Assertions.assertEquals(Optional.empty(), index.search("дрель", 0, 10));
+        Mockito.verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    public void test4_applyChangesAfterCommitAndReloadAfterRollback() {
+        Mockito
+                .when(itemRepository.findAllForSearch())
+                .thenReturn(List.of(view(1L, "Дрель", "Простая дрель", true)));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, primaryRead(), "memory");
+        Assertions.assertEquals(Optional.of(List.of(1L)), index.search("дрель", 0, 10));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.index(new Item(2L, "Дрель", "Новая", true));
+            Assertions.assertEquals(Optional.of(List.of(1L)), index.search("дрель", 0, 10));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            Assertions.assertEquals(Optional.of(List.of(1L, 2L)), index.search("дрель", 0, 10));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Mockito
+                .when(itemRepository.findSearchViewById(1L))
+                .thenReturn(Optional.of(view(1L, "Дрель", "Простая дрель", true)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.index(new Item(1L, "Пила", "Ножовка", true));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assertions.assertEquals(Optional.of(List.of(1L, 2L)), index.search("дрель", 0, 10));
+        Assertions.assertEquals(Optional.of(List.of()), index.search("ножов", 0, 10));
+        Mockito.verify(itemRepository, Mockito.times(1)).findAllForSearch();
+    }
+
+    private ItemSearchView view(Long id, String name, String description, Boolean available) {
+        return new ItemSearchView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+
+            @Override
+            public Boolean getAvailable() {
+                return available;
+            }
+
+            @Override
+            public Long getOwnerId() {
+                return 1L;
+            }
+        };
+    }
+
+    private PrimaryReadTemplate primaryRead() {
+        return new PrimaryReadTemplate(transactionManager, false);
+    }
+}
@@ -23,6 +23,7 @@ import ru.practicum.shareit.user.UserService;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -47,12 +48,12 @@ public class ItemServiceTest {
     private final ItemRequest request = new ItemRequest();
     private final ItemDto itemDto = new ItemDto();
     private final BookingDto lastBookingDto = new BookingDto(
-            1L,
+            0L,
             LocalDateTime.now().minusDays(5),
             LocalDateTime.now().minusDays(2)
     );
     private final BookingDto nextBookingDto = new BookingDto(
-            1L,
+            0L,
             LocalDateTime.now().plusDays(3),
             LocalDateTime.now().plusDays(5)
     );
@@ -78,7 +79,7 @@ public class ItemServiceTest {
         request.setRequestor(user2);
         request.setDescription("Request item");
         itemRequestService.createRequest(user2.getId(), request);
-        itemDto.setRequestId(1L);
+        itemDto.setRequestId(request.getId());
         itemDto.setAvailable(true);
         itemDto.setDescription("Description item");
         itemDto.setName("New item");
@@ -87,7 +88,8 @@ public class ItemServiceTest {
     @Test
     public void test1_createItem() {
         Item item = itemService.createItem(itemDto, user1.getId());
-        assertThat(item.getId(), equalTo(1L));
+        assertThat(item.getId(), greaterThan(0L));
+        assertThat(em.find(Item.class, item.getId()), equalTo(item));
         assertThat(item.getRequest(), equalTo(request));
         assertThat(item.getDescription(), equalTo(itemDto.getDescription()));
         assertThat(item.getOwner(), equalTo(user1));
@@ -102,9 +104,9 @@ public class ItemServiceTest {
         updateItem.setName("Update name");
         updateItem.setDescription("Description after update");
         updateItem.setAvailable(false);
-        updateItem.setRequestId(1L);
+        updateItem.setRequestId(request.getId());
         Item itemAfterUpdate = itemService.updateItem(user1.getId(), updateItem, item.getId());
-        assertThat(itemAfterUpdate.getId(), equalTo(1L));
+        assertThat(itemAfterUpdate.getId(), equalTo(item.getId()));
         assertThat(itemAfterUpdate.getRequest(), equalTo(request));
         assertThat(itemAfterUpdate.getDescription(), equalTo(updateItem.getDescription()));
         assertThat(itemAfterUpdate.getOwner(), equalTo(user1));
@@ -115,12 +117,14 @@ public class ItemServiceTest {
     @Test
     public void test3_getItem() {
         Item item = itemService.createItem(itemDto, user1.getId());
+        lastBookingDto.setItemId(item.getId());
+        nextBookingDto.setItemId(item.getId());
         Booking lastBooking = bookingService.createBooking(user2.getId(), lastBookingDto);
         Booking nextBooking = bookingService.createBooking(user2.getId(), nextBookingDto);
         commentDto.setText("Comment for item1");
         Comment comment = itemService.createComment(user2.getId(), item.getId(), commentDto);
         ItemDtoWithBooking itemDtoWithBooking = itemService.getItem(item.getId(), user1.getId());
-        assertThat(itemDtoWithBooking.getId(), equalTo(1L));
+        assertThat(itemDtoWithBooking.getId(), equalTo(item.getId()));
         assertThat(itemDtoWithBooking.getName(), equalTo(item.getName()));
         assertThat(itemDtoWithBooking.getDescription(), equalTo(item.getDescription()));
         assertThat(itemDtoWithBooking.getAvailable(), equalTo(item.getAvailable()));
@@ -133,6 +137,7 @@ public class ItemServiceTest {
     @Test
     public void test4_getAllItem() {
         Item item1 = itemService.createItem(itemDto, user1.getId());
+        lastBookingDto.setItemId(item1.getId());
         ItemDto itemDto2 = new ItemDto();
         itemDto2.setAvailable(false);
         itemDto2.setDescription("Description item 2");
@@ -171,13 +176,34 @@ public class ItemServiceTest {
     @Test
     public void test6_createComment() {
         Item item1 = itemService.createItem(itemDto, user1.getId());
+        lastBookingDto.setItemId(item1.getId());
         Booking lastBooking = bookingService.createBooking(user2.getId(), lastBookingDto);
         commentDto.setText("Comment for item1");
         Comment comment = itemService.createComment(user2.getId(), item1.getId(), commentDto);
-        assertThat(comment.getId(), equalTo(1L));
+        assertThat(comment.getId(), greaterThan(0L));
+        assertThat(em.find(Comment.class, comment.getId()), equalTo(comment));
         assertThat(comment.getItem(), equalTo(item1));
         assertThat(comment.getCreated(), notNullValue());
         assertThat(comment.getAuthor(), equalTo(user2));
         assertThat(comment.getText(), equalTo(commentDto.getText()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test7_getAvailability() {
+        Item item = itemService.createItem(itemDto, user1.getId());
+        LocalDateTime from = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = from.plusDays(10);
+        bookingService.createBooking(user2.getId(), new BookingDto(item.getId(), from.plusDays(1), from.plusDays(2)));
+        bookingService.createBooking(user2.getId(), new BookingDto(item.getId(), from.plusDays(2), from.plusDays(3)));
+        Booking rejected = bookingService.createBooking(user2.getId(),
+                new BookingDto(item.getId(), from.plusDays(5), from.plusDays(6)));
+        bookingService.changeStatus(rejected.getId(), false, user1.getId());
+        assertThat(itemService.getAvailability(item.getId(), from, to), equalTo(List.of(
+                new FreePeriod(from, from.plusDays(1)),
+                new FreePeriod(from.plusDays(3), to))));
+        LocalDateTime pastFrom = from.minusDays(30);
+        assertThat(itemService.getAvailability(item.getId(), pastFrom, to), equalTo(List.of(
+                new FreePeriod(pastFrom, from.plusDays(1)),
+                new FreePeriod(from.plusDays(3), to))));
+    }
+}
@@ -8,10 +8,16 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import ru.practicum.shareit.InvalidPeriodException;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingIntervalTree;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.ItemBookingSummary;
+import ru.practicum.shareit.booking.ItemBookingSummaryStore;
 import ru.practicum.shareit.booking.NotAvailableBookingException;
 import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingDtoForItem;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentDtoFromRequest;
 import ru.practicum.shareit.comment.CommentMapper;
@@ -19,6 +25,8 @@ import ru.practicum.shareit.comment.CommentRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBooking;
 import ru.practicum.shareit.requests.ItemRequest;
+import ru.practicum.shareit.requests.ItemRequestFeedCache;
+import ru.practicum.shareit.requests.ItemRequestMatcher;
 import ru.practicum.shareit.requests.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
@@ -38,6 +46,16 @@ public class ItemServiceUnitTest {
     private CommentRepository commentRepository;
     @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemDatabaseSearch itemDatabaseSearch;
+    @Mock
+    private ItemBookingSummaryStore itemBookingSummaryStore;
+    @Mock
+    private ItemRequestFeedCache itemRequestFeedCache;
+    @Mock
+    private ItemRequestMatcher itemRequestMatcher;
     @InjectMocks
     private ItemServiceImpl service;
     private final Item item1 = new Item(1L, "Item1", "Description for item 1", true);
@@ -166,7 +184,7 @@ public class ItemServiceUnitTest {
         comment1.setId(1L);
         Mockito
                 .when(commentRepository.findCommentsByItem_Id(item1.getId()))
-                .thenReturn(Set.of(comment1));
+                .thenReturn(List.of(comment1));
         ItemDtoWithBooking item = service.getItem(1L, 1L);
         Assertions.assertEquals("Item1", item.getName());
         Assertions.assertEquals(1L, item.getId());
@@ -203,8 +221,8 @@ public class ItemServiceUnitTest {
                 .when(itemRepository.findAllByOwnerId(user1.getId(), pageable))
                 .thenReturn(page);
         Mockito
-                .when(commentRepository.findCommentsByItem_Id(item1.getId()))
-                .thenReturn(Set.of(comment1));
+                .when(commentRepository.findCommentsByItemIds(Set.of(item1.getId(), item2.getId())))
+                .thenReturn(List.of(comment1));
         Collection<ItemDtoWithBooking> itemsDto = service.getAllItem(user1.getId(), from, size);
         List<ItemDtoWithBooking> items = Collections.unmodifiableList(new ArrayList<>(itemsDto));
         ItemDtoWithBooking itemDto1 = ItemMapper.toItemDtoWithBooking(item1);
@@ -239,14 +257,9 @@ public class ItemServiceUnitTest {
 
     @Test
     public void test12_trySearchItems() {
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Item> list = List.of(item1);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<Item> page = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
-                .when(itemRepository.findItems("Item1", pageable))
-                .thenReturn(page);
+                .when(itemDatabaseSearch.search("Item1", from, size))
+                .thenReturn(List.of(item1));
         List<Item> itemList = List.copyOf(service.searchItems("Item1", from, size));
         Assertions.assertEquals(1, itemList.size());
     }
@@ -325,4 +338,78 @@ public class ItemServiceUnitTest {
         Item item = service.updateItem(1L, newItem, 1L);
         Assertions.assertEquals(item1, item);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test18_tryGetAllItemWithBookings() {
+        Pageable pageable = PageRequest.of(from / size, size, Sort.by("id").ascending());
+        Page<Item> page = new PageImpl<>(List.of(item1, item2), pageable, 2);
+        ItemBookingSummary summary1 = new ItemBookingSummary(item1.getId());
+        summary1.setLastBookingId(1L);
+        summary1.setLastBookerId(user2.getId());
+        ItemBookingSummary summary2 = new ItemBookingSummary(item2.getId());
+        summary2.setNextBookingId(2L);
+        summary2.setNextBookerId(user2.getId());
+        Mockito
+                .when(itemRepository.findAllByOwnerId(user1.getId(), pageable))
+                .thenReturn(page);
+        Mockito
+                .when(itemBookingSummaryStore.get(
+                        Mockito.eq(Set.of(item1.getId(), item2.getId())),
+                        Mockito.any(LocalDateTime.class)))
+                .thenReturn(Map.of(item1.getId(), summary1, item2.getId(), summary2));
+        List<ItemDtoWithBooking> items = List.copyOf(service.getAllItem(user1.getId(), from, size));
+        Assertions.assertEquals(new BookingDtoForItem(1L, user2.getId()), items.get(0).getLastBooking());
+        Assertions.assertNull(items.get(0).getNextBooking());
+        Assertions.assertNull(items.get(1).getLastBooking());
+        Assertions.assertEquals(new BookingDtoForItem(2L, user2.getId()), items.get(1).getNextBooking());
+    }
+
+    @Test
+    public void test19_trySearchItemsByIndex() {
+        Mockito
+                .when(itemSearchIndex.search("item", from, size))
+                .thenReturn(Optional.of(List.of(1L, 2L)));
+        Mockito
+                .when(itemRepository.findAllByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(item2, item1));
+        List<Item> itemList = List.copyOf(service.searchItems("item", from, size));
+        Assertions.assertEquals(List.of(item1, item2), itemList);
+        Mockito.verify(itemDatabaseSearch, Mockito.never()).search(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void test20_getAvailability() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        BookingIntervalTree periods = new BookingIntervalTree(from);
+        periods.put(1L, from.minusDays(1), from.plusDays(1));
+        periods.put(2L, from.plusDays(2), from.plusDays(4));
+        periods.put(3L, from.plusDays(3), from.plusDays(5));
+        periods.put(4L, from.plusDays(5), from.plusDays(6));
+        Mockito
+                .when(itemRepository.existsById(item1.getId()))
+                .thenReturn(true);
+        Mockito
+                .when(bookingRepository.findActivePeriodsBetween(item1.getId(), from, to,
+                        BookingIntervalIndex.ACTIVE_STATUSES))
+                .thenReturn(periods.findOverlapping(from, to));
+        Assertions.assertEquals(List.of(
+                        new FreePeriod(from.plusDays(1), from.plusDays(2)),
+                        new FreePeriod(from.plusDays(6), to)),
+                service.getAvailability(item1.getId(), from, to));
+    }
+
+    @Test
+    public void test21_tryGetAvailabilityWithWrongPeriod() {
+        LocalDateTime from = LocalDateTime.now();
+        Assertions.assertThrows(InvalidPeriodException.class, () ->
+                service.getAvailability(item1.getId(), from, from));
+        Assertions.assertThrows(InvalidPeriodException.class, () ->
+                service.getAvailability(item1.getId(), from, from.plusDays(367)));
+        NotFoundItemException thrown = Assertions.assertThrows(NotFoundItemException.class, () ->
+                service.getAvailability(item1.getId(), from, from.plusDays(1)));
+        Assertions.assertEquals("Вещь с id = 1 не найдена", thrown.getMessage());
+        Mockito.verify(bookingRepository, Mockito.never())
+                .findActivePeriodsBetween(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+}
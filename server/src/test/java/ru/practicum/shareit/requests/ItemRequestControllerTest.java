@@ -12,6 +12,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.KeysetCursor;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.User;
 
@@ -28,6 +29,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -144,6 +146,28 @@ public class ItemRequestControllerTest {
         }
     }
 
+    @Test
+    public void test5_tryGetAllRequestsByCursor() {
+        List<ItemRequestDto> requests = Stream.of(request1, request2)
+                .map(ItemRequestMapper::toItemRequestDto)
+                .collect(Collectors.toList());
+        KeysetCursor cursor = new KeysetCursor(request1.getCreated(), 3L);
+        when(service.getAllRequest(1L, cursor, 2))
+                .thenReturn(requests);
+        try {
+            mvc.perform(get("/requests/all")
+                            .param("cursor", cursor.encode())
+                            .param("size", "2")
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.*", is(hasSize(2))))
+                    .andExpect(header().string(ItemRequestController.NEXT_CURSOR_HEADER,
+                            new KeysetCursor(request2.getCreated(), request2.getId()).encode()));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
     @Test
     public void test4_tryGetRequestById() {
         item.setRequestId(2L);
@@ -170,4 +194,20 @@ public class ItemRequestControllerTest {
             throw new RuntimeException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test6_tryGetSuggestions() {
+        when(service.getSuggestions(1L, 2L))
+                .thenReturn(List.of(item));
+        try {
+            mvc.perform(get("/requests/{requestId}/suggestions", 2)
+                            .header("X-Sharer-User-Id", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.*", is(hasSize(1))))
+                    .andExpect(jsonPath("$[0].id", is(item.getId()), Long.class))
+                    .andExpect(jsonPath("$[0].name", is(item.getName())));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit.requests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.KeysetCursor;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemRequestFeedCacheTest {
+    private static final int CAPACITY = 3;
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private final User user1 = new User(1L, "User1", "user1@email.com");
+    private final User user2 = new User(2L, "User2", "user2@email.com");
+    private final LocalDateTime now = LocalDateTime.now();
+    private ItemRequestFeedCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ItemRequestFeedCache(itemRequestRepository, itemRepository, primaryRead(), CAPACITY,
+                Duration.ofHours(1));
+    }
+
+    @Test
+    public void test1_filterOwnRequestsAndAttachItems() {
+        ItemRequest request1 = request(1L, user1, 1);
+        ItemRequest request2 = request(2L, user2, 2);
+        Item item = new Item(10L, "Item", "Item for request", true);
+        item.setRequest(request1);
+        Mockito
+                .when(itemRequestRepository.findRecent(PageRequest.of(0, CAPACITY)))
+                .thenReturn(List.of(request2, request1));
+        Mockito
+                .when(itemRepository.findItemDtosByRequests(List.of(2L, 1L)))
+                .thenReturn(Map.of(1L, List.of(ItemMapper.toItemDto(item))));
+        ItemRequestFeedCache.FeedPage page = cache.getPage(2L, null, 0, 10);
+        Assertions.assertFalse(page.isIncomplete());
+        Assertions.assertEquals(List.of(1L), ids(page));
+        Assertions.assertEquals(Set.of(ItemMapper.toItemDto(item)), page.getRequests().get(0).getItems());
+        Item other = new Item(11L, "Other", "Other item for request", true);
+        other.setRequest(request1);
+        cache.putItem(other);
+        Assertions.assertEquals(2, cache.getPage(2L, null, 0, 10).getRequests().get(0).getItems().size());
+        Assertions.assertEquals(List.of(2L, 1L), ids(cache.getPage(3L, null, 0, 10)));
+        Assertions.assertEquals(List.of(1L), ids(cache.getPage(3L, null, 1, 10)));
+    }
+
+    @Test
+    public void test2_evictOldestRequestAndReportIncompletePage() {
+        Mockito
+                .when(itemRequestRepository.findRecent(PageRequest.of(0, CAPACITY)))
+                .thenReturn(List.of(request(3L, user1, 3), request(2L, user1, 2), request(1L, user1, 1)));
+        Assertions.assertTrue(cache.getPage(2L, null, 0, 10).isIncomplete());
+        cache.add(request(4L, user2, 4));
+        cache.add(request(5L, user1, 5));
+        Assertions.assertEquals(List.of(5L, 4L, 3L), ids(cache.getPage(3L, null, 0, 3)));
+        Assertions.assertFalse(cache.getPage(3L, null, 0, 3).isIncomplete());
+        ItemRequestFeedCache.FeedPage page = cache.getPage(2L, null, 0, 3);
+        Assertions.assertEquals(List.of(5L, 3L), ids(page));
+        Assertions.assertTrue(page.isIncomplete());
+        ItemRequestFeedCache.FeedPage afterCursor = cache.getPage(2L, new KeysetCursor(now.plusMinutes(5), 5L), 0, 3);
+        Assertions.assertEquals(List.of(3L), ids(afterCursor));
+        Assertions.assertTrue(afterCursor.isIncomplete());
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findRecent(Mockito.any());
+    }
+
+    @Test
+    public void test3_reloadWhenOlderRequestArrives() {
+        Mockito
+                .when(itemRequestRepository.findRecent(PageRequest.of(0, CAPACITY)))
+                .thenReturn(List.of(request(2L, user1, 2)));
+        Assertions.assertEquals(List.of(2L), ids(cache.getPage(2L, null, 0, 10)));
+        cache.add(request(1L, user1, 1));
+        cache.getPage(2L, null, 0, 10);
+        Mockito.verify(itemRequestRepository, Mockito.times(2)).findRecent(Mockito.any());
+    }
+
+    @Test
+    public void test4_applyChangesAfterCommitOnly() {
+        ItemRequest request1 = request(1L, user1, 1);
+        Mockito
+                .when(itemRequestRepository.findRecent(PageRequest.of(0, CAPACITY)))
+                .thenReturn(List.of(request1));
+        Assertions.assertEquals(List.of(1L), ids(cache.getPage(2L, null, 0, 10)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.add(request(2L, user1, 2));
+            Item item = new Item(10L, "Item", "Item for request", true);
+            item.setRequest(request1);
+            cache.putItem(item);
+            Assertions.assertEquals(List.of(1L), ids(cache.getPage(2L, null, 0, 10)));
+            Assertions.assertEquals(Set.of(), cache.getPage(2L, null, 0, 10).getRequests().get(0).getItems());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assertions.assertEquals(List.of(1L), ids(cache.getPage(2L, null, 0, 10)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.add(request(3L, user1, 3));
+            Assertions.assertEquals(List.of(1L), ids(cache.getPage(2L, null, 0, 10)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assertions.assertEquals(List.of(3L, 1L), ids(cache.getPage(2L, null, 0, 10)));
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findRecent(Mockito.any());
+    }
+
+    private ItemRequest request(long id, User requestor, int minutes) {
+        return new ItemRequest(id, "Request " + id, requestor, now.plusMinutes(minutes));
+    }
+
+    private List<Long> ids(ItemRequestFeedCache.FeedPage page) {
+        return page.getRequests().stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private PrimaryReadTemplate primaryRead() {
+        return new PrimaryReadTemplate(transactionManager, false);
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.requests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.datasource.PrimaryReadTemplate;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemRequestMatcherTest {
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private final User user1 = new User(1L, "User1", "user1@email.com");
+    private final User user2 = new User(2L, "User2", "user2@email.com");
+    private ItemRequestMatcher matcher;
+
+    @BeforeEach
+    public void setUp() {
+        matcher = new ItemRequestMatcher(itemRequestRepository, itemRepository, primaryRead(), 2, 1000);
+        Mockito
+                .when(itemRequestRepository.findOpenRequests())
+                .thenReturn(List.of());
+        Mockito
+                .when(itemRepository.findAllForSearch())
+                .thenReturn(List.of());
+        Assertions.assertEquals(List.of(), matcher.getSuggestions(1L));
+    }
+
+    @Test
+    public void test1_matchItemsByTerms() {
+        matcher.addRequest(request(1L, user1, "Нужна дрель для ремонта"));
+        matcher.itemSaved(item(10L, user2, "Дрель", "Ударная дрель с набором сверл", true));
+        matcher.itemSaved(item(11L, user2, "Перфоратор", "Для ремонта стен", true));
+        matcher.itemSaved(item(12L, user2, "Палатка", "Туристическая", true));
+        Assertions.assertEquals(List.of(11L, 10L), matcher.getSuggestions(1L));
+    }
+
+    @Test
+    public void test2_skipOwnAndUnavailableItems() {
+        matcher.addRequest(request(1L, user1, "Нужна дрель"));
+        matcher.itemSaved(item(10L, user1, "Дрель", "Своя дрель", true));
+        matcher.itemSaved(item(11L, user2, "Дрель", "Занятая дрель", false));
+        Assertions.assertEquals(List.of(), matcher.getSuggestions(1L));
+        matcher.itemSaved(item(11L, user2, "Дрель", "Свободная дрель", true));
+        Assertions.assertEquals(List.of(11L), matcher.getSuggestions(1L));
+        matcher.itemSaved(item(11L, user2, "Палатка", "Туристическая", true));
+        Assertions.assertEquals(List.of(), matcher.getSuggestions(1L));
+    }
+
+    @Test
+    public void test3_keepBestSuggestions() {
+        matcher.addRequest(request(1L, user1, "Аккумуляторная дрель шуруповерт"));
+        matcher.itemSaved(item(10L, user2, "Дрель", "Сетевая", true));
+        matcher.itemSaved(item(11L, user2, "Шуруповерт", "Сетевой", true));
+        matcher.itemSaved(item(12L, user2, "Дрель шуруповерт", "Аккумуляторная", true));
+        Assertions.assertEquals(List.of(12L, 10L), matcher.getSuggestions(1L));
+    }
+
+    @Test
+    public void test4_removeAnsweredRequest() {
+        ItemRequest request = request(1L, user1, "Нужна дрель");
+        matcher.addRequest(request);
+        matcher.addRequest(request(2L, user1, "Ищу дрель"));
+        matcher.itemSaved(item(10L, user2, "Дрель", "Обычная дрель", true));
+        Item answer = item(11L, user2, "Дрель", "Дрель по запросу", true);
+        answer.setRequest(request);
+        matcher.itemSaved(answer);
+        Assertions.assertEquals(List.of(), matcher.getSuggestions(1L));
+        Assertions.assertEquals(List.of(10L, 11L), matcher.getSuggestions(2L));
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findOpenRequests();
+    }
+
+    @Test
+    public void test5_termsUseWordPrefixes() {
+        Assertions.assertEquals(Set.of("дрель", "ремон", "для"), ItemRequestMatcher.terms("Дрелью для ремонта, ок"));
+    }
+
+    @Test
+    public void test6_matchNewRequestWithExistingItems() {
+        matcher.itemSaved(item(10L, user2, "Дрель", "Ударная дрель с набором сверл", true));
+        matcher.itemSaved(item(11L, user2, "Перфоратор", "Для ремонта стен", true));
+        matcher.itemSaved(item(12L, user1, "Дрель", "Своя дрель для ремонта", true));
+        matcher.itemSaved(item(13L, user2, "Дрель", "Занятая дрель", false));
+        matcher.addRequest(request(1L, user1, "Нужна дрель для ремонта"));
+        Assertions.assertEquals(List.of(11L, 10L), matcher.getSuggestions(1L));
+        matcher.itemSaved(item(10L, user2, "Палатка", "Туристическая", true));
+        Assertions.assertEquals(List.of(11L), matcher.getSuggestions(1L));
+    }
+
+    @Test
+    public void test7_applyChangesAfterCommitOnly() {
+        matcher.itemSaved(item(10L, user2, "Дрель", "Ударная дрель", true));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            matcher.addRequest(request(1L, user1, "Нужна дрель"));
+            Assertions.assertEquals(List.of(), matcher.getSuggestions(1L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            Assertions.assertEquals(List.of(10L), matcher.getSuggestions(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            matcher.itemSaved(item(11L, user2, "Дрель", "Новая дрель", true));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assertions.assertEquals(List.of(10L), matcher.getSuggestions(1L));
+        Mockito.verify(itemRequestRepository, Mockito.times(1)).findOpenRequests();
+    }
+
+    private ItemRequest request(long id, User requestor, String description) {
+        return new ItemRequest(id, description, requestor, LocalDateTime.now());
+    }
+
+    private Item item(long id, User owner, String name, String description, boolean available) {
+        Item item = new Item(id, name, description, available);
+        item.setOwner(owner);
+        return item;
+    }
+
+    private PrimaryReadTemplate primaryRead() {
+        return new PrimaryReadTemplate(transactionManager, false);
+    }
+}
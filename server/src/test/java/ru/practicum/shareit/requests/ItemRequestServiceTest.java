@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.KeysetCursor;
 import ru.practicum.shareit.ShareItApp;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemMapper;
@@ -36,11 +37,11 @@ public class ItemRequestServiceTest {
     private final ItemRequestService service;
     private final UserService userService;
     private final ItemService itemService;
-    private final User user1 = new User(1L, "Test1", "test1@email.com");
-    private final User user2 = new User(2L, "Test2", "test2@email.com");
+    private final User user1 = new User(0L, "Test1", "test1@email.com");
+    private final User user2 = new User(0L, "Test2", "test2@email.com");
     private final ItemRequest itemRequest1 = new ItemRequest();
     private final ItemRequest itemRequest2 = new ItemRequest();
-    private final Item item = new Item(1L, "New item", "Item for test", true);
+    private final Item item = new Item(0L, "New item", "Item for test", true);
 
     @BeforeEach
     public void restartIdentity() {
@@ -61,13 +62,13 @@ public class ItemRequestServiceTest {
         ItemRequest itemRequest = new ItemRequest();
         itemRequest.setDescription("Test description");
         userService.createUser(user);
-        service.createRequest(1, itemRequest);
+        service.createRequest(user.getId(), itemRequest);
         TypedQuery<ItemRequest> query = em.createQuery(
                 "select i from ItemRequest i where i.description = :description",
                 ItemRequest.class);
         ItemRequest newItemRequest = query.setParameter("description", itemRequest.getDescription()).getSingleResult();
         assertThat(newItemRequest.getId(), notNullValue());
-        assertThat(newItemRequest.getId(), equalTo(1L));
+        assertThat(newItemRequest.getId(), equalTo(itemRequest.getId()));
         assertThat(newItemRequest.getRequestor(), equalTo(user));
         assertThat(newItemRequest.getCreated(), notNullValue());
         assertThat(newItemRequest.getDescription(), equalTo(itemRequest.getDescription()));
@@ -78,9 +79,9 @@ public class ItemRequestServiceTest {
         item.setRequest(itemRequest1);
         userService.createUser(user1);
         userService.createUser(user2);
-        service.createRequest(1, itemRequest1);
-        service.createRequest(1, itemRequest2);
-        itemService.createItem(ItemMapper.toItemDto(item), 2L);
+        service.createRequest(user1.getId(), itemRequest1);
+        service.createRequest(user1.getId(), itemRequest2);
+        item.setId(itemService.createItem(ItemMapper.toItemDto(item), user2.getId()).getId());
         List<ItemRequestDto> requests = service.getRequestsByOwner(user1.getId());
         List<ItemRequestDto> expectedRequests = Stream.of(itemRequest1, itemRequest2)
                 .sorted(Comparator.comparing(ItemRequest::getCreated).reversed())
@@ -100,10 +101,10 @@ public class ItemRequestServiceTest {
         item.setRequest(itemRequest1);
         userService.createUser(user1);
         userService.createUser(user2);
-        service.createRequest(1, itemRequest1);
-        service.createRequest(1, itemRequest2);
-        itemService.createItem(ItemMapper.toItemDto(item), 2L);
-        List<ItemRequestDto> requests = service.getAllRequest(2L, 0, 5);
+        service.createRequest(user1.getId(), itemRequest1);
+        service.createRequest(user1.getId(), itemRequest2);
+        item.setId(itemService.createItem(ItemMapper.toItemDto(item), user2.getId()).getId());
+        List<ItemRequestDto> requests = service.getAllRequest(user2.getId(), 0, 5);
         List<ItemRequestDto> expectedRequests = Stream.of(itemRequest1, itemRequest2)
                 .sorted(Comparator.comparing(ItemRequest::getCreated).reversed())
                 .map(ItemRequestMapper::toItemRequestDto)
@@ -122,12 +123,67 @@ public class ItemRequestServiceTest {
         item.setRequest(itemRequest1);
         userService.createUser(user1);
         userService.createUser(user2);
-        service.createRequest(1, itemRequest1);
-        itemService.createItem(ItemMapper.toItemDto(item), 2L);
-        ItemRequestDto newItemRequest1 = service.getRequestById(1L, 1L);
-        assertThat(newItemRequest1.getId(), equalTo(1L));
+        service.createRequest(user1.getId(), itemRequest1);
+        item.setId(itemService.createItem(ItemMapper.toItemDto(item), user2.getId()).getId());
+        ItemRequestDto newItemRequest1 = service.getRequestById(user1.getId(), itemRequest1.getId());
+        assertThat(newItemRequest1.getId(), equalTo(itemRequest1.getId()));
         assertThat(newItemRequest1.getItems(), equalTo(Set.of(ItemMapper.toItemDto(item))));
         assertThat(newItemRequest1.getCreated(), equalTo(itemRequest1.getCreated()));
         assertThat(newItemRequest1.getDescription(), equalTo("Test request 1"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test5_getAllRequestByCursor() {
+        userService.createUser(user1);
+        userService.createUser(user2);
+        for (int i = 0; i < 3; i++) {
+            ItemRequest other = new ItemRequest();
+            other.setDescription("Other request " + i);
+            service.createRequest(user1.getId(), other);
+            ItemRequest own = new ItemRequest();
+            own.setDescription("Own request " + i);
+            service.createRequest(user2.getId(), own);
+        }
+        em.flush();
+        em.clear();
+        List<ItemRequestDto> firstPage = service.getAllRequest(user2.getId(), 0, 2);
+        assertThat(descriptions(firstPage), equalTo(List.of("Other request 2", "Other request 1")));
+        ItemRequestDto last = firstPage.get(1);
+        List<ItemRequestDto> secondPage = service.getAllRequest(user2.getId(),
+                new KeysetCursor(last.getCreated(), last.getId()), 2);
+        assertThat(descriptions(secondPage), equalTo(List.of("Other request 0")));
+    }
+
+    @Test
+    public void test6_getSuggestions() {
+        userService.createUser(user1);
+        userService.createUser(user2);
+        itemRequest1.setDescription("Нужна палатка для похода");
+        service.createRequest(user1.getId(), itemRequest1);
+        Item tent = new Item(0L, "Палатка", "Двухместная палатка", true);
+        tent.setId(itemService.createItem(ItemMapper.toItemDto(tent), user2.getId()).getId());
+        itemService.createItem(ItemMapper.toItemDto(new Item(0L, "Дрель", "Ударная дрель", true)), user2.getId());
+        assertThat(service.getSuggestions(user1.getId(), itemRequest1.getId()),
+                equalTo(List.of(ItemMapper.toItemDto(tent))));
+    }
+
+    @Test
+    public void test7_noSuggestionsForAnsweredRequest() {
+        userService.createUser(user1);
+        userService.createUser(user2);
+        itemRequest1.setDescription("Нужна палатка для похода");
+        service.createRequest(user1.getId(), itemRequest1);
+        itemService.createItem(ItemMapper.toItemDto(new Item(0L, "Палатка", "Двухместная палатка", true)),
+                user2.getId());
+        Item answer = new Item(0L, "Палатка", "Палатка по запросу", true);
+        answer.setRequest(itemRequest1);
+        itemService.createItem(ItemMapper.toItemDto(answer), user2.getId());
+        assertThat(service.getSuggestions(user1.getId(), itemRequest1.getId()), equalTo(List.of()));
+    }
+
+    private List<String> descriptions(List<ItemRequestDto> requests) {
+        return requests.stream()
+                .map(ItemRequestDto::getDescription)
+                .collect(Collectors.toList());
+    }
+}
@@ -7,10 +7,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.KeysetCursor;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
@@ -20,6 +19,7 @@ import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -33,6 +33,10 @@ public class ItemRequestServiceUnitTest {
     private ItemRepository itemRepository;
     @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemRequestFeedCache itemRequestFeedCache;
+    @Mock
+    private ItemRequestMatcher itemRequestMatcher;
     @InjectMocks
     private ItemRequestServiceImpl service;
     private final User user1 = new User(1L, "Test User 1", "test1@email.com");
@@ -114,11 +118,10 @@ public class ItemRequestServiceUnitTest {
                 .when(itemRequestRepository.findAllByRequestorId(1L))
                 .thenReturn(List.of(itemRequest2, itemRequest1));
         Mockito
-                .when(itemRepository.findItemsByRequest(2L))
-                .thenReturn(List.of(item1, item2));
-        Mockito
-                .when(itemRepository.findItemsByRequest(1L))
-                .thenReturn(List.of());
+                .when(itemRepository.findItemDtosByRequests(List.of(1L, 2L)))
+                .thenReturn(Map.of(2L, Stream.of(item1, item2)
+                        .map(ItemMapper::toItemDto)
+                        .collect(Collectors.toList())));
         List<ItemRequestDto> list1 = Stream.of(itemRequest1, itemRequest2)
                 .map(ItemRequestMapper::toItemRequestDto)
                 .collect(Collectors.toList());
@@ -137,15 +140,16 @@ public class ItemRequestServiceUnitTest {
         Mockito
                 .when(userRepository.findById(1L))
                 .thenReturn(Optional.of(user1));
-        List<ItemRequest> list = List.of(itemRequest1, itemRequest2, itemRequest3);
+        Mockito
+                .when(itemRequestFeedCache.getPage(Mockito.anyLong(), Mockito.isNull(), Mockito.eq(0), Mockito.eq(10)))
+                .thenReturn(new ItemRequestFeedCache.FeedPage(List.of(), true));
         Pageable pageable = PageRequest.of(0, 10);
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-        Page<ItemRequest> page
-                = new PageImpl<>(list.subList(start, end), pageable, list.size());
         Mockito
-                .when(itemRequestRepository.findAll(Mockito.any(Pageable.class)))
-                .thenReturn(page);
+                .when(itemRequestRepository.findOthersRequests(2L, pageable))
+                .thenReturn(List.of(itemRequest1, itemRequest2));
+        Mockito
+                .when(itemRequestRepository.findOthersRequests(1L, pageable))
+                .thenReturn(List.of(itemRequest3));
         List<ItemRequestDto> listDtoUser2 = Stream.of(itemRequest1, itemRequest2)
                 .map(ItemRequestMapper::toItemRequestDto)
                 .collect(Collectors.toList());
@@ -176,8 +180,8 @@ public class ItemRequestServiceUnitTest {
                 .thenReturn(Optional.of(itemRequest1));
         item1.setRequest(itemRequest1);
         Mockito
-                .when(itemRepository.findItemsByRequest(1L))
-                .thenReturn(List.of(item1));
+                .when(itemRepository.findItemDtosByRequests(List.of(1L)))
+                .thenReturn(Map.of(1L, List.of(ItemMapper.toItemDto(item1))));
         ItemRequestDto item = ItemRequestMapper.toItemRequestDto(itemRequest1);
         item.setItems(Set.of(ItemMapper.toItemDto(item1)));
         Assertions.assertEquals(item, service.getRequestById(1, 1));
@@ -205,4 +209,54 @@ public class ItemRequestServiceUnitTest {
                 () -> service.getRequestById(1L, 1L));
         Assertions.assertEquals(ex.getMessage(), "Не найден запрос id = 1");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test11_checkGetAllRequestsByCursor() {
+        Mockito
+                .when(userRepository.findById(2L))
+                .thenReturn(Optional.of(user2));
+        KeysetCursor cursor = new KeysetCursor(itemRequest1.getCreated(), itemRequest1.getId());
+        Mockito
+                .when(itemRequestFeedCache.getPage(2L, cursor, 0, 10))
+                .thenReturn(new ItemRequestFeedCache.FeedPage(List.of(), true));
+        Mockito
+                .when(itemRequestRepository.findOthersRequestsAfterCursor(2L, itemRequest1.getCreated(),
+                        itemRequest1.getId(), PageRequest.of(0, 10)))
+                .thenReturn(List.of(itemRequest2));
+        Assertions.assertEquals(List.of(ItemRequestMapper.toItemRequestDto(itemRequest2)),
+                service.getAllRequest(2L, cursor, 10));
+    }
+
+    @Test
+    public void test12_checkGetAllRequestsFromFeedCache() {
+        Mockito
+                .when(userRepository.findById(2L))
+                .thenReturn(Optional.of(user2));
+        List<ItemRequestDto> cached = List.of(ItemRequestMapper.toItemRequestDto(itemRequest1));
+        Mockito
+                .when(itemRequestFeedCache.getPage(2L, null, 0, 10))
+                .thenReturn(new ItemRequestFeedCache.FeedPage(cached, false));
+        Assertions.assertEquals(cached, service.getAllRequest(2L, 0, 10));
+        Mockito.verifyNoInteractions(itemRequestRepository, itemRepository);
+    }
+
+    @Test
+    public void test13_checkGetAllRequestsByCursorPastFeedCache() {
+        Mockito
+                .when(userRepository.findById(2L))
+                .thenReturn(Optional.of(user2));
+        KeysetCursor cursor = new KeysetCursor(itemRequest3.getCreated(), itemRequest3.getId());
+        Mockito
+                .when(itemRequestFeedCache.getPage(2L, cursor, 0, 2))
+                .thenReturn(new ItemRequestFeedCache.FeedPage(
+                        List.of(ItemRequestMapper.toItemRequestDto(itemRequest1)), true));
+        Mockito
+                .when(itemRequestRepository.findOthersRequestsAfterCursor(2L, itemRequest1.getCreated(),
+                        itemRequest1.getId(), PageRequest.of(0, 1)))
+                .thenReturn(List.of(itemRequest2));
+        Assertions.assertEquals(Stream.of(itemRequest1, itemRequest2)
+                        .map(ItemRequestMapper::toItemRequestDto)
+                        .collect(Collectors.toList()),
+                service.getAllRequest(2L, cursor, 2));
+    }
+}
@@ -8,18 +8,29 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
+import ru.practicum.shareit.ErrorHandler;
+import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,8 +45,12 @@ public class UserControllerTest {
 
     @BeforeEach
     public void setUp() {
+        ProxyFactory validated = new ProxyFactory(userController);
+        validated.setProxyTargetClass(true);
+        validated.addAdvice(new MethodValidationInterceptor());
         mvc = MockMvcBuilders
-                .standaloneSetup(userController)
+                .standaloneSetup(validated.getProxy())
+                .setControllerAdvice(new ErrorHandler())
                 .build();
     }
 
@@ -106,7 +121,7 @@ public class UserControllerTest {
     public void test4_tryGetAllUsers() {
         User user1 = new User(2L, "New name", "new@ya.ru");
         List<User> userList = List.of(user, user1);
-        when(userService.getAllUsers())
+        when(userService.getUsers(0L, 100))
                 .thenReturn(userList);
         try {
             mvc.perform(get("/users")
@@ -120,7 +135,8 @@ public class UserControllerTest {
                     .andExpect(jsonPath("$.[0].name", is("Test")))
                     .andExpect(jsonPath("$.[1].name", is("New name")))
                     .andExpect(jsonPath("$.[0].email", is("test@test.com")))
-                    .andExpect(jsonPath("$.[1].email", is("new@ya.ru")));
+                    .andExpect(jsonPath("$.[1].email", is("new@ya.ru")))
+                    .andExpect(header().string(UserController.NEXT_AFTER_ID_HEADER, nullValue()));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -138,4 +154,69 @@ public class UserControllerTest {
             throw new RuntimeException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test6_tryGetUsersAfterId() {
+        when(userService.getUsers(1L, 1))
+                .thenReturn(List.of(new User(2L, "New name", "new@ya.ru")));
+        try {
+            mvc.perform(get("/users")
+                            .param("afterId", "1")
+                            .param("size", "1")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.*", is(hasSize(1))))
+                    .andExpect(jsonPath("$.[0].id", is(2)))
+                    .andExpect(header().string(UserController.NEXT_AFTER_ID_HEADER, "2"));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Test
+    public void test7_tryExportUsers() {
+        Mockito.doAnswer(invocation -> {
+            Consumer<UserDto> consumer = invocation.getArgument(0);
+            consumer.accept(UserMapper.toUserDto(user));
+            consumer.accept(new UserDto(2L, "New name", "new@ya.ru"));
+            return null;
+        }).when(userService).exportUsers(Mockito.any());
+        try {
+            MvcResult result = mvc.perform(get("/users")
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+            String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+            assertThat(lines.length, is(2));
+            assertThat(mapper.readValue(lines[0], UserDto.class), is(UserMapper.toUserDto(user)));
+            assertThat(mapper.readValue(lines[1], UserDto.class).getId(), is(2L));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verify(userService, Mockito.never()).getUsers(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    public void test8_tryGetUsersWithInvalidPage() {
+        try {
+            mvc.perform(get("/users")
+                            .param("size", "0")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+            mvc.perform(get("/users")
+                            .param("size", "-1")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+            mvc.perform(get("/users")
+                            .param("afterId", "-1")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Mockito.verifyNoInteractions(userService);
+    }
+}
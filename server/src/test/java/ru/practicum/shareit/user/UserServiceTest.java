@@ -7,9 +7,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -43,7 +45,7 @@ public class UserServiceTest {
                 "select u from User u where u.email = :email",
                 User.class);
         User newUser = query.setParameter("email", user1.getEmail()).getSingleResult();
-        assertThat(newUser.getId(), equalTo(1L));
+        assertThat(newUser.getId(), equalTo(user1.getId()));
         assertThat(newUser.getName(), equalTo(user1.getName()));
         assertThat(newUser.getEmail(), equalTo(user1.getEmail()));
     }
@@ -53,12 +55,12 @@ public class UserServiceTest {
         userService.createUser(user1);
         newUser.setName("New name");
         newUser.setEmail("email@newemail.com");
-        userService.updateUser(1L, newUser);
+        userService.updateUser(user1.getId(), newUser);
         TypedQuery<User> query = em.createQuery(
                 "select u from User u where u.id = :id",
                 User.class);
         User updateUser = query.setParameter("id", user1.getId()).getSingleResult();
-        assertThat(updateUser.getId(), equalTo(1L));
+        assertThat(updateUser.getId(), equalTo(user1.getId()));
         assertThat(updateUser.getName(), equalTo(newUser.getName()));
         assertThat(updateUser.getEmail(), equalTo(newUser.getEmail()));
     }
@@ -76,7 +78,7 @@ public class UserServiceTest {
         newUser.setName("user2");
         newUser.setEmail("test2@ya.ru");
         userService.createUser(newUser);
-        List<User> userList = userService.getAllUsers();
+        List<User> userList = userService.getUsers(0, 10);
         assertThat(userList, equalTo(List.of(user1, newUser)));
     }
 
@@ -86,9 +88,31 @@ public class UserServiceTest {
         newUser.setName("user2");
         newUser.setEmail("test2@ya.ru");
         userService.createUser(newUser);
-        userService.deleteUser(2L);
-        List<User> userList = userService.getAllUsers();
+        userService.deleteUser(newUser.getId());
+        List<User> userList = userService.getUsers(0, 10);
         assertThat(userList, equalTo(List.of(user1)));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test6_getUsersAfterId() {
+        userService.createUser(user1);
+        newUser.setName("user2");
+        newUser.setEmail("test2@ya.ru");
+        userService.createUser(newUser);
+        assertThat(userService.getUsers(0, 1), equalTo(List.of(user1)));
+        assertThat(userService.getUsers(user1.getId(), 10), equalTo(List.of(newUser)));
+        assertThat(userService.getUsers(newUser.getId(), 10), equalTo(List.of()));
+    }
+
+    @Test
+    public void test7_exportUsers() {
+        userService.createUser(user1);
+        newUser.setName("user2");
+        newUser.setEmail("test2@ya.ru");
+        userService.createUser(newUser);
+        List<UserDto> users = new ArrayList<>();
+        userService.exportUsers(users::add);
+        assertThat(users, equalTo(List.of(UserMapper.toUserDto(user1), UserMapper.toUserDto(newUser))));
+    }
+}
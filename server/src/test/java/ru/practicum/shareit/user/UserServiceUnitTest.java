@@ -7,6 +7,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -83,9 +84,9 @@ public class UserServiceUnitTest {
     public void test6_tryGetAllUsers() {
         User user2 = new User(2L, "Test_name_2", "test2@email.com");
         Mockito
-                .when(userRepository.findAll())
+                .when(userRepository.findUsersAfter(0L, PageRequest.of(0, 10)))
                 .thenReturn(List.of(user1, user2));
-        List<User> users = userService.getAllUsers();
+        List<User> users = userService.getUsers(0, 10);
         Assertions.assertEquals(List.of(user1, user2), users);
     }
 
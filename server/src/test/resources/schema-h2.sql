@@ -0,0 +1,2 @@
+create trigger if not exists booking_item_period_excl before insert, update on booking
+    for each row call 'ru.practicum.shareit.booking.H2BookingOverlapTrigger';